@@ -0,0 +1,57 @@
+package com.guicedee.vertx.websockets.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upgrade handshake through {@code builder(HttpServer)} up to the {@code Everyone} group join.
+ *
+ * <p>Each operation opens one client socket and waits for the upgrade; the sockets of an iteration
+ * are closed after it, outside the measurement.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AcceptBenchmark
+{
+    private BenchmarkServer server;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception
+    {
+        server = BenchmarkServer.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void disconnect() throws Exception
+    {
+        server.disconnectAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception
+    {
+        server.close();
+    }
+
+    @Benchmark
+    public Object connect() throws Exception
+    {
+        return server.connect(null);
+    }
+}
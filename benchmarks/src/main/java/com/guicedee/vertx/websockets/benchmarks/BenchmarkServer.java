@@ -0,0 +1,248 @@
+package com.guicedee.vertx.websockets.benchmarks;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import com.guicedee.vertx.websockets.WebSocketServerOptions;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.VerticleBase;
+import io.vertx.core.http.ClientWebSocket;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.WebSocketClient;
+import io.vertx.core.http.WebSocketClientOptions;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process GuicedEE WebSocket server and client shared by the benchmarks.
+ *
+ * <p>Boots the injector, deploys one HTTP server per available processor on an ephemeral port through
+ * {@link VertxSocketHttpWebSocketConfigurator#builder(io.vertx.core.http.HttpServer)} and connects
+ * clients from a separate Vert.x instance, so the accept path, the {@code Everyone} join and the
+ * outbound writes are the library's own.</p>
+ *
+ * <p>Clients are spread over the loopback addresses {@code 127.0.0.1}, {@code 127.0.0.2}, ... so that
+ * group sizes beyond the ephemeral port range of a single address can be connected.</p>
+ */
+final class BenchmarkServer implements AutoCloseable
+{
+    static final long TIMEOUT_SECONDS = 60;
+
+    private static final int CONNECTIONS_PER_ADDRESS = 20_000;
+    private static final int CONNECT_BATCH = 1_000;
+
+    private final Vertx vertx;
+    private final Vertx clientVertx;
+    private final WebSocketClient client;
+    private final int port;
+    private final String deploymentId;
+    private final List<ClientWebSocket> clients = new ArrayList<>();
+    private final Map<String, ClientWebSocket> tracked = new ConcurrentHashMap<>();
+
+    private BenchmarkServer(Vertx vertx, Vertx clientVertx, int port, String deploymentId)
+    {
+        this.vertx = vertx;
+        this.clientVertx = clientVertx;
+        this.port = port;
+        this.deploymentId = deploymentId;
+        this.client = clientVertx.createWebSocketClient(new WebSocketClientOptions().setMaxConnections(Integer.MAX_VALUE)
+                                                                                    .setConnectTimeout((int) TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS)));
+    }
+
+    /**
+     * Boots GuicedEE and starts the server.
+     *
+     * <p>The group size limit is lifted, every benchmark connection joins {@code Everyone}.</p>
+     *
+     * @return the started server
+     */
+    static BenchmarkServer start() throws Exception
+    {
+        IGuiceContext.instance()
+                     .inject();
+        WebSocketServerOptions options = IGuiceContext.get(WebSocketServerOptions.class);
+        options.setMaxGroupSize(Integer.MAX_VALUE);
+        VertxSocketHttpWebSocketConfigurator.setOptions(options);
+
+        Vertx vertx = IGuiceContext.get(Vertx.class);
+        VertxSocketHttpWebSocketConfigurator configurator = IGuiceContext.get(VertxSocketHttpWebSocketConfigurator.class);
+        int port = freePort();
+        String deploymentId = await(vertx.deployVerticle(() -> new VerticleBase()
+        {
+            @Override
+            public Future<?> start()
+            {
+                return configurator.builder(vertx.createHttpServer(configurator.builder(new HttpServerOptions())))
+                                   .listen(port);
+            }
+        }, new DeploymentOptions().setInstances(Runtime.getRuntime()
+                                                      .availableProcessors())));
+        return new BenchmarkServer(vertx, Vertx.vertx(), port, deploymentId);
+    }
+
+    Vertx vertx()
+    {
+        return vertx;
+    }
+
+    /**
+     * Opens one client socket and waits for the upgrade to complete.
+     *
+     * @param onText the client's text message handler, may be null
+     * @return the connected client socket
+     */
+    ClientWebSocket connect(Handler<String> onText) throws Exception
+    {
+        ClientWebSocket socket = open(onText);
+        await(socket.connect(port, host(clients.size() + tracked.size()), "/"));
+        clients.add(socket);
+        return socket;
+    }
+
+    /**
+     * Opens client sockets in batches and waits for all of them.
+     *
+     * @param count  the number of sockets to open
+     * @param onText the text message handler of every socket, may be null
+     */
+    void connect(int count, Handler<String> onText) throws Exception
+    {
+        for (int opened = 0; opened < count; )
+        {
+            List<Future<Void>> batch = new ArrayList<>();
+            List<ClientWebSocket> sockets = new ArrayList<>();
+            for (int i = 0; i < CONNECT_BATCH && opened < count; i++, opened++)
+            {
+                int index = clients.size() + sockets.size();
+                ClientWebSocket socket = open(onText);
+                sockets.add(socket);
+                batch.add(socket.connect(port, host(index), "/"));
+            }
+            await(Future.all(batch));
+            clients.addAll(sockets);
+        }
+    }
+
+    /**
+     * Opens one client socket and returns its server-side connection.
+     *
+     * <p>Finds the connection by comparing the registry before and after the upgrade, so it is only
+     * meant for the few probe connections of a benchmark, not for bulk connects.</p>
+     *
+     * @return the connection registered for the new socket
+     */
+    WebSocketConnection connectTracked() throws Exception
+    {
+        Set<String> before = new HashSet<>(VertxSocketHttpWebSocketConfigurator.connections.keySet());
+        ClientWebSocket socket = open(null);
+        await(socket.connect(port, host(clients.size() + tracked.size()), "/"));
+        for (var entry : VertxSocketHttpWebSocketConfigurator.connections.entrySet())
+        {
+            if (!before.contains(entry.getKey()))
+            {
+                tracked.put(entry.getKey(), socket);
+                return entry.getValue();
+            }
+        }
+        await(socket.close());
+        throw new IllegalStateException("The server did not register the connection");
+    }
+
+    /**
+     * Closes the client socket of a connection opened with {@link #connectTracked()}.
+     *
+     * @param connection the server-side connection
+     */
+    void disconnect(WebSocketConnection connection) throws Exception
+    {
+        ClientWebSocket socket = tracked.remove(connection.getId());
+        if (socket != null)
+        {
+            await(socket.close());
+        }
+    }
+
+    /**
+     * Closes every client socket and waits until the server has released them.
+     */
+    void disconnectAll() throws Exception
+    {
+        List<Future<Void>> closing = new ArrayList<>();
+        for (ClientWebSocket socket : clients)
+        {
+            closing.add(socket.close());
+        }
+        for (ClientWebSocket socket : tracked.values())
+        {
+            closing.add(socket.close());
+        }
+        clients.clear();
+        tracked.clear();
+        await(Future.join(closing));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (VertxSocketHttpWebSocketConfigurator.getConnectionCount() != 0)
+        {
+            if (System.nanoTime() > deadline)
+            {
+                throw new IllegalStateException(VertxSocketHttpWebSocketConfigurator.getConnectionCount()
+                        + " connections were not released: " + VertxSocketHttpWebSocketConfigurator.getOrphanedRegistrations());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        try
+        {
+            disconnectAll();
+        }
+        finally
+        {
+            await(clientVertx.close());
+            await(vertx.undeploy(deploymentId));
+        }
+    }
+
+    static <T> T await(Future<T> future) throws Exception
+    {
+        return future.toCompletionStage()
+                     .toCompletableFuture()
+                     .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private ClientWebSocket open(Handler<String> onText)
+    {
+        ClientWebSocket socket = client.webSocket();
+        if (onText != null)
+        {
+            socket.textMessageHandler(onText);
+        }
+        return socket;
+    }
+
+    private static String host(int index)
+    {
+        return "127.0.0." + (1 + index / CONNECTIONS_PER_ADDRESS);
+    }
+
+    private static int freePort() throws IOException
+    {
+        try (ServerSocket socket = new ServerSocket(0))
+        {
+            return socket.getLocalPort();
+        }
+    }
+}
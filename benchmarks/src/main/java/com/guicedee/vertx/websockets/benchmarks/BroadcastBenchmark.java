@@ -0,0 +1,78 @@
+package com.guicedee.vertx.websockets.benchmarks;
+
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from {@code publishToGroup(group, message)} until the last of {@code groupSize} clients has received the frame.
+ *
+ * <p>Run in {@link Mode#SampleTime} so the JSON result carries the p50, p99 and p999 of the fan-out.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BroadcastBenchmark
+{
+    private static final String GROUP = "bench-fanout";
+    private static final String MESSAGE = "{\"type\":\"tick\",\"value\":42}";
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int groupSize;
+
+    private BenchmarkServer server;
+    private volatile CountDownLatch received = new CountDownLatch(0);
+
+    @Setup(Level.Trial)
+    public void start() throws Exception
+    {
+        server = BenchmarkServer.start();
+        server.connect(groupSize, message -> received.countDown());
+        for (WebSocketConnection connection : new ArrayList<>(VertxSocketHttpWebSocketConfigurator.connections.values()))
+        {
+            VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), GROUP, connection.getSocket());
+        }
+        if (VertxSocketHttpWebSocketConfigurator.getGroupSize(GROUP) != groupSize)
+        {
+            throw new IllegalStateException("Expected " + groupSize + " members, found "
+                    + VertxSocketHttpWebSocketConfigurator.getGroupSize(GROUP));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception
+    {
+        server.close();
+    }
+
+    @Benchmark
+    public void fanOut() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(groupSize);
+        received = latch;
+        VertxSocketHttpWebSocketConfigurator.publishToGroup(GROUP, MESSAGE);
+        if (!latch.await(BenchmarkServer.TIMEOUT_SECONDS, TimeUnit.SECONDS))
+        {
+            throw new IllegalStateException(latch.getCount() + " of " + groupSize + " clients did not receive the broadcast");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.guicedee.vertx.websockets.benchmarks;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.client.scopes.CallScopeProperties;
+import com.guicedee.client.scopes.CallScoper;
+import com.guicedee.client.services.websocket.IGuicedWebSocket;
+import com.guicedee.vertx.websockets.GuicedWebSocket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GuicedWebSocket#receiveMessage(String)} from the action peek through listener completion.
+ *
+ * <p>A known action is dispatched to {@link NoOpReceiver}; an unknown action takes the
+ * not-registered path, including its warning log line. The call scope is entered once per benchmark
+ * thread, as the accept handler does per connection.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DispatchBenchmark
+{
+    @Param({"true", "false"})
+    public boolean knownAction;
+
+    private CallScoper callScoper;
+    private GuicedWebSocket webSocket;
+    private String message;
+
+    @Setup(Level.Trial)
+    public void start()
+    {
+        IGuiceContext.instance()
+                     .inject();
+        callScoper = IGuiceContext.get(CallScoper.class);
+        callScoper.enter();
+        IGuiceContext.get(CallScopeProperties.class)
+                     .getProperties()
+                     .put("RequestContextId", "bench-dispatch");
+        webSocket = (GuicedWebSocket) IGuiceContext.get(IGuicedWebSocket.class);
+        String action = knownAction ? NoOpReceiver.ACTION : "bench-unknown";
+        message = "{\"action\":\"" + action + "\",\"data\":{\"text\":\"hello\"}}";
+    }
+
+    @TearDown(Level.Trial)
+    public void stop()
+    {
+        callScoper.exit();
+    }
+
+    @Benchmark
+    public Object receive()
+    {
+        return webSocket.receiveMessage(message)
+                        .await()
+                        .indefinitely();
+    }
+}
@@ -0,0 +1,79 @@
+package com.guicedee.vertx.websockets.benchmarks;
+
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import io.vertx.core.http.ServerWebSocket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code configureGroupListener} cost for one more member of a group already holding {@code groupSize} members.
+ *
+ * <p>The existing members are real client connections accepted by the server and joined through
+ * {@code configureGroupListener}. Each operation joins a probe connection and leaves again, which keeps
+ * the group size constant; the leave is part of the measured time.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GroupJoinBenchmark
+{
+    private static final String GROUP = "bench-join";
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int groupSize;
+
+    private BenchmarkServer server;
+    private ServerWebSocket probe;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception
+    {
+        server = BenchmarkServer.start();
+        WebSocketConnection connection = server.connectTracked();
+        probe = connection.getSocket();
+        server.connect(groupSize, null);
+        for (WebSocketConnection member : new ArrayList<>(VertxSocketHttpWebSocketConfigurator.connections.values()))
+        {
+            if (member != connection)
+            {
+                VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), GROUP, member.getSocket());
+            }
+        }
+        if (VertxSocketHttpWebSocketConfigurator.getGroupSize(GROUP) != groupSize)
+        {
+            throw new IllegalStateException("Expected " + groupSize + " members, found "
+                    + VertxSocketHttpWebSocketConfigurator.getGroupSize(GROUP));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception
+    {
+        server.close();
+    }
+
+    @Benchmark
+    public void join()
+    {
+        VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), GROUP, probe);
+        VertxSocketHttpWebSocketConfigurator.removeFromGroup(GROUP, probe);
+    }
+}
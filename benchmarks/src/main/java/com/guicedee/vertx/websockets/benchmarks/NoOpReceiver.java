@@ -0,0 +1,28 @@
+package com.guicedee.vertx.websockets.benchmarks;
+
+import com.guicedee.client.services.websocket.IWebSocketMessageReceiver;
+import com.guicedee.client.services.websocket.WebSocketMessageReceiver;
+import io.smallrye.mutiny.Uni;
+
+import java.util.Set;
+
+/**
+ * Listener for the {@value #ACTION} action that does nothing, so a dispatch benchmark measures the library only.
+ */
+public class NoOpReceiver implements IWebSocketMessageReceiver<Void, NoOpReceiver>
+{
+    static final String ACTION = "bench";
+
+    @Override
+    public Set<String> messageNames()
+    {
+        return Set.of(ACTION);
+    }
+
+    @Override
+    public Uni<Void> receiveMessage(WebSocketMessageReceiver<?> message)
+    {
+        return Uni.createFrom()
+                  .voidItem();
+    }
+}
@@ -0,0 +1,85 @@
+package com.guicedee.vertx.websockets.benchmarks;
+
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import io.vertx.core.http.ServerWebSocket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code removeConnection} for a connection in {@code groupsPerConnection} groups.
+ *
+ * <p>Before every invocation a new client connects and its connection joins the groups. An anchor
+ * connection stays in all of them, so the measured removal never reclaims a group. Only the release
+ * of the registrations is measured; the client socket is closed after each invocation.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TeardownBenchmark
+{
+    @Param({"2", "10", "100"})
+    public int groupsPerConnection;
+
+    private BenchmarkServer server;
+    private String[] groups;
+    private WebSocketConnection probe;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception
+    {
+        server = BenchmarkServer.start();
+        groups = new String[groupsPerConnection];
+        ServerWebSocket anchor = server.connectTracked()
+                                       .getSocket();
+        for (int i = 0; i < groupsPerConnection; i++)
+        {
+            groups[i] = "bench-teardown-" + i;
+            VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), groups[i], anchor);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void register() throws Exception
+    {
+        probe = server.connectTracked();
+        for (String group : groups)
+        {
+            VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), group, probe.getSocket());
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void disconnect() throws Exception
+    {
+        server.disconnect(probe);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception
+    {
+        server.close();
+    }
+
+    @Benchmark
+    public void close()
+    {
+        VertxSocketHttpWebSocketConfigurator.removeConnection(probe.getId(), probe.getSocket());
+    }
+}
@@ -0,0 +1,76 @@
+package com.guicedee.vertx.websockets.loadtest;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketServerOptions;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VerticleBase;
+import io.vertx.core.http.HttpServerOptions;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GuicedEE with this module, serving WebSockets in the harness JVM on an ephemeral port.
+ *
+ * <p>One server is deployed per available processor through the configurator's
+ * {@code builder(HttpServerOptions)} and {@code builder(HttpServer)}, as the Vert.x web module does.</p>
+ */
+final class EmbeddedServer
+{
+    private final int port;
+
+    private EmbeddedServer(int port)
+    {
+        this.port = port;
+    }
+
+    /**
+     * Boots the injector and starts listening.
+     *
+     * @param maxGroupSize the group size limit, every connection joins {@code Everyone}
+     * @return the running server
+     */
+    static EmbeddedServer start(int maxGroupSize) throws Exception
+    {
+        IGuiceContext.instance()
+                     .inject();
+        WebSocketServerOptions options = IGuiceContext.get(WebSocketServerOptions.class);
+        options.setMaxGroupSize(Math.max(options.getMaxGroupSize(), maxGroupSize));
+        VertxSocketHttpWebSocketConfigurator.setOptions(options);
+
+        Vertx vertx = IGuiceContext.get(Vertx.class);
+        VertxSocketHttpWebSocketConfigurator configurator = IGuiceContext.get(VertxSocketHttpWebSocketConfigurator.class);
+        int port = freePort();
+        vertx.deployVerticle(() -> new VerticleBase()
+             {
+                 @Override
+                 public Future<?> start()
+                 {
+                     return configurator.builder(vertx.createHttpServer(configurator.builder(new HttpServerOptions())))
+                                        .listen(port);
+                 }
+             }, new DeploymentOptions().setInstances(Runtime.getRuntime()
+                                                           .availableProcessors()))
+             .toCompletionStage()
+             .toCompletableFuture()
+             .get(30, TimeUnit.SECONDS);
+        return new EmbeddedServer(port);
+    }
+
+    int port()
+    {
+        return port;
+    }
+
+    private static int freePort() throws IOException
+    {
+        try (ServerSocket socket = new ServerSocket(0))
+        {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.guicedee.vertx.websockets.loadtest;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.vertx.websockets.GuicedWebSocketHandlers;
+import com.guicedee.vertx.websockets.JsonWebSocketMessageCodec;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.ClientWebSocket;
+import io.vertx.core.http.WebSocketClient;
+import io.vertx.core.http.WebSocketClientOptions;
+import io.vertx.core.http.WebSocketConnectOptions;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap held per idle connection, with and without {@code connectionConsumers}.
+ *
+ * <p>Two figures are reported for each setting:</p>
+ * <ul>
+ *     <li>heap after full GC with the connections open, minus before, divided by the connection count.
+ *     Clients run in the same JVM, so this includes both ends of every socket.</li>
+ *     <li>the library-owned share, from JOL: everything reachable from the registries that is not also
+ *     reachable from the sockets, the Vert.x instance or the shared codecs.</li>
+ * </ul>
+ *
+ * <p>The client side is the same in both runs, so the difference between the heap figures is the
+ * cost of the per-connection EventBus consumer. JOL needs {@code -Djdk.attach.allowAttachSelf}.</p>
+ */
+final class Footprint
+{
+    private static final int CONNECTIONS_PER_ADDRESS = 20_000;
+
+    private final LoadTestOptions options;
+    private final MemoryMonitor memory = MemoryMonitor.install();
+
+    Footprint(LoadTestOptions options)
+    {
+        this.options = options;
+    }
+
+    /**
+     * Opens {@code --footprint} idle connections for each {@code connectionConsumers} setting and prints the figures.
+     *
+     * @return true when every connection was released after each run
+     */
+    boolean run() throws Exception
+    {
+        int count = options.footprint;
+        EmbeddedServer server = EmbeddedServer.start(count);
+        Vertx clientVertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(options.clientLoops));
+        WebSocketClient client = clientVertx.createWebSocketClient(new WebSocketClientOptions().setMaxConnections(Integer.MAX_VALUE));
+        boolean released = true;
+        long[] heapPerConnection = new long[2];
+        try
+        {
+            for (int run = 0; run < 2; run++)
+            {
+                boolean consumers = run == 1;
+                VertxSocketHttpWebSocketConfigurator.getOptions()
+                                                    .setConnectionConsumers(consumers);
+                long before = settledHeap();
+                List<ClientWebSocket> sockets = connect(client, server, count);
+                long after = settledHeap();
+                heapPerConnection[run] = (after - before) / count;
+
+                GraphLayout owned = libraryOwned();
+                System.out.printf(Locale.ROOT, "connectionConsumers=%s connections=%d heapPerConnection(both ends)=%dB libraryOwnedPerConnection=%dB objectsPerConnection=%.1f%n",
+                        consumers, VertxSocketHttpWebSocketConfigurator.getConnectionCount(), heapPerConnection[run],
+                        owned.totalSize() / count, owned.totalCount() / (double) count);
+                System.out.println(owned.toFootprint());
+
+                released &= close(sockets);
+            }
+            System.out.printf(Locale.ROOT, "EventBus consumer per connection: %dB%n", heapPerConnection[1] - heapPerConnection[0]);
+        }
+        finally
+        {
+            clientVertx.close()
+                       .toCompletionStage()
+                       .toCompletableFuture()
+                       .get(30, TimeUnit.SECONDS);
+        }
+        return released;
+    }
+
+    /**
+     * Everything reachable from the registries minus what the sockets, Vert.x and the codecs already hold.
+     */
+    private static GraphLayout libraryOwned()
+    {
+        GraphLayout registries = GraphLayout.parseInstance(VertxSocketHttpWebSocketConfigurator.connections,
+                VertxSocketHttpWebSocketConfigurator.groupSockets, VertxSocketHttpWebSocketConfigurator.groupConsumers);
+        List<Object> shared = new ArrayList<>();
+        for (WebSocketConnection connection : VertxSocketHttpWebSocketConfigurator.connections.values())
+        {
+            shared.add(connection.getSocket());
+        }
+        shared.add(IGuiceContext.get(Vertx.class));
+        shared.add(JsonWebSocketMessageCodec.INSTANCE);
+        shared.add(GuicedWebSocketHandlers.codecs());
+        return registries.subtract(GraphLayout.parseInstance(shared.toArray()));
+    }
+
+    private List<ClientWebSocket> connect(WebSocketClient client, EmbeddedServer server, int count) throws Exception
+    {
+        List<ClientWebSocket> sockets = new ArrayList<>();
+        List<Future<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            ClientWebSocket socket = client.webSocket();
+            sockets.add(socket);
+            pending.add(socket.connect(new WebSocketConnectOptions().setHost("127.0.0." + (1 + i / CONNECTIONS_PER_ADDRESS))
+                                                                    .setPort(server.port())
+                                                                    .setURI("/")));
+        }
+        Future.all(pending)
+              .toCompletionStage()
+              .toCompletableFuture()
+              .get(5, TimeUnit.MINUTES);
+        return sockets;
+    }
+
+    private boolean close(List<ClientWebSocket> sockets) throws Exception
+    {
+        List<Future<Void>> pending = new ArrayList<>();
+        for (ClientWebSocket socket : sockets)
+        {
+            pending.add(socket.close());
+        }
+        Future.join(pending)
+              .toCompletionStage()
+              .toCompletableFuture()
+              .get(5, TimeUnit.MINUTES);
+        long deadline = System.nanoTime() + options.grace.toNanos();
+        while (VertxSocketHttpWebSocketConfigurator.getConnectionCount() != 0 && System.nanoTime() < deadline)
+        {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        if (VertxSocketHttpWebSocketConfigurator.getConnectionCount() != 0)
+        {
+            System.out.println("FAILED: " + VertxSocketHttpWebSocketConfigurator.getConnectionCount() + " connections still registered");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Heap after full GC once it stops shrinking, so that finalization and reference processing have settled.
+     */
+    private long settledHeap() throws InterruptedException
+    {
+        long previous = Long.MAX_VALUE;
+        long current = memory.heapAfterFullGc();
+        for (int i = 0; i < 5 && current < previous; i++)
+        {
+            TimeUnit.MILLISECONDS.sleep(200);
+            previous = current;
+            current = memory.heapAfterFullGc();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,144 @@
+package com.guicedee.vertx.websockets.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.ClientWebSocket;
+import io.vertx.core.http.WebSocketClient;
+import io.vertx.core.http.WebSocketConnectOptions;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.Recorder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One simulated client: joins its groups after connecting, sends echo requests at its inbound rate and
+ * records the latency of every echo and broadcast it receives.
+ */
+final class LoadClient
+{
+    private final Vertx vertx;
+    private final WebSocketClient client;
+    private final WebSocketConnectOptions connectOptions;
+    private final List<String> groups;
+    private final double inboundRate;
+    private final Recorder echoLatency;
+    private final Recorder broadcastLatency;
+
+    private volatile ClientWebSocket socket;
+    private volatile long inboundTimer = -1;
+
+    LoadClient(Vertx vertx, WebSocketClient client, WebSocketConnectOptions connectOptions, List<String> groups,
+               double inboundRate, Recorder echoLatency, Recorder broadcastLatency)
+    {
+        this.vertx = vertx;
+        this.client = client;
+        this.connectOptions = connectOptions;
+        this.groups = groups;
+        this.inboundRate = inboundRate;
+        this.echoLatency = echoLatency;
+        this.broadcastLatency = broadcastLatency;
+    }
+
+    /**
+     * Opens the socket, joins the client's groups and starts its inbound traffic.
+     *
+     * @return completes once the upgrade is done
+     */
+    Future<Void> connect()
+    {
+        ClientWebSocket opening = client.webSocket();
+        opening.textMessageHandler(this::onText);
+        return opening.connect(connectOptions)
+                      .onSuccess(v -> {
+                          socket = opening;
+                          if (!groups.isEmpty())
+                          {
+                              send(LoadTestReceiver.JOIN, new JsonObject().put("groups", new JsonArray(groups)));
+                          }
+                          if (inboundRate > 0)
+                          {
+                              long period = Math.max(1, Math.round(1000 / inboundRate));
+                              //spread the first sends, so clients opened together do not send together
+                              inboundTimer = vertx.setPeriodic(1 + ThreadLocalRandom.current()
+                                                                                    .nextLong(period), period,
+                                      id -> send(LoadTestReceiver.ECHO, new JsonObject().put("sent", System.nanoTime())));
+                          }
+                      });
+    }
+
+    /**
+     * Asks the server to publish a timestamped message to a group.
+     *
+     * @param group the group to publish to
+     */
+    void broadcast(String group)
+    {
+        send(LoadTestReceiver.BROADCAST, new JsonObject().put("group", group)
+                                                         .put("sent", System.nanoTime()));
+    }
+
+    boolean isConnected()
+    {
+        ClientWebSocket current = socket;
+        return current != null && !current.isClosed();
+    }
+
+    /**
+     * Stops the inbound traffic and closes the socket.
+     *
+     * @return completes once the socket is closed
+     */
+    Future<Void> close()
+    {
+        if (inboundTimer != -1)
+        {
+            vertx.cancelTimer(inboundTimer);
+            inboundTimer = -1;
+        }
+        ClientWebSocket current = socket;
+        socket = null;
+        return current == null ? Future.succeededFuture() : current.close();
+    }
+
+    private void send(String action, JsonObject data)
+    {
+        ClientWebSocket current = socket;
+        if (current != null && !current.isClosed() && !current.writeQueueFull())
+        {
+            current.writeTextMessage(new JsonObject().put("action", action)
+                                                     .put("data", data)
+                                                     .encode());
+        }
+    }
+
+    private void onText(String text)
+    {
+        long received = System.nanoTime();
+        JsonObject message;
+        try
+        {
+            message = new JsonObject(text);
+        }
+        catch (DecodeException e)
+        {
+            return;
+        }
+        Long sent = message.getLong("sent");
+        if (sent == null)
+        {
+            return;
+        }
+        String type = message.getString("type");
+        if ("echo".equals(type))
+        {
+            echoLatency.recordValue(received - sent);
+        }
+        else if ("broadcast".equals(type))
+        {
+            broadcastLatency.recordValue(received - sent);
+        }
+    }
+}
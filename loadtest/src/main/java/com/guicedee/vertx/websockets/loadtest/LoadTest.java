@@ -0,0 +1,443 @@
+package com.guicedee.vertx.websockets.loadtest;
+
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketOverflowPolicy;
+import com.guicedee.vertx.websockets.WebSocketStatistics;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.WebSocketClient;
+import io.vertx.core.http.WebSocketClientOptions;
+import io.vertx.core.http.WebSocketConnectOptions;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Load and soak harness, see {@code docs/load-testing.md}.
+ *
+ * <p>Opens {@code --connections} clients at {@code --ramp} per second, drives echo and broadcast
+ * traffic for {@code --duration}, reports latency percentiles, memory, collections and registry sizes
+ * every {@code --interval}, and exits with status 1 if a leak check fails. With {@code --footprint N}
+ * it measures the heap per idle connection instead, see {@link Footprint}.</p>
+ */
+public final class LoadTest
+{
+    private static final String USAGE = """
+            Usage: java -jar loadtest.jar [--connections N] [--client-loops N] [--ramp N/s] [--groups N]
+                   [--groups-per-client N] [--inbound-rate N/s] [--broadcast-rate N/s] [--duration 10m]
+                   [--churn 0.0-1.0 per minute] [--target ws://host:port/path] [--interval 10s] [--grace 10s]
+                   [--max-heap-growth percent per hour]
+                   java -Djdk.attach.allowAttachSelf -jar loadtest.jar --footprint N [--client-loops N]""";
+    private static final int CONNECTIONS_PER_ADDRESS = 20_000;
+    private static final long MB = 1024 * 1024;
+
+    private final LoadTestOptions options;
+    private final MemoryMonitor memory = MemoryMonitor.install();
+    private final Recorder echoLatency = new Recorder(3);
+    private final Recorder broadcastLatency = new Recorder(3);
+    private final Histogram echoTotal = new Histogram(3);
+    private final Histogram broadcastTotal = new Histogram(3);
+    private final List<LoadClient> clients = new ArrayList<>();
+    private final List<long[]> consumerSamples = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final Zipf zipf;
+
+    private Vertx clientVertx;
+    private WebSocketClient client;
+    private long started;
+    private long connectFailures;
+
+    LoadTest(LoadTestOptions options)
+    {
+        this.options = options;
+        this.zipf = new Zipf(options.groups);
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        LoadTestOptions options;
+        try
+        {
+            options = LoadTestOptions.parse(args);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        boolean passed = options.footprint > 0 ? new Footprint(options).run() : new LoadTest(options).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Runs the ramp, the steady state and the final disconnect.
+     *
+     * @return true if every leak check passed
+     */
+    boolean run() throws Exception
+    {
+        System.out.println("options: " + options);
+        EmbeddedServer server = options.isEmbedded() ? EmbeddedServer.start(options.connections) : null;
+        clientVertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(options.clientLoops));
+        client = clientVertx.createWebSocketClient(new WebSocketClientOptions().setMaxConnections(Integer.MAX_VALUE));
+        started = System.nanoTime();
+        try
+        {
+            for (int i = 0; i < options.connections; i++)
+            {
+                clients.add(new LoadClient(clientVertx, client, connectOptions(server, i), groupsForClient(),
+                        options.inboundRate, echoLatency, broadcastLatency));
+            }
+            ramp();
+            steadyState();
+            disconnect();
+        }
+        finally
+        {
+            clientVertx.close()
+                       .toCompletionStage()
+                       .toCompletableFuture()
+                       .get(30, TimeUnit.SECONDS);
+        }
+        summary();
+        return failures.isEmpty();
+    }
+
+    private void ramp() throws Exception
+    {
+        //opened in tenths of a second, so the ramp is smooth rather than a burst each second
+        int perTick = Math.max(1, options.ramp / 10);
+        List<Future<Void>> pending = new ArrayList<>();
+        for (int opened = 0; opened < clients.size(); )
+        {
+            long tick = System.nanoTime();
+            for (int i = 0; i < perTick && opened < clients.size(); i++, opened++)
+            {
+                pending.add(clients.get(opened)
+                                   .connect());
+            }
+            long sleep = TimeUnit.MILLISECONDS.toNanos(100) - (System.nanoTime() - tick);
+            if (sleep > 0)
+            {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+        }
+        awaitAll(pending);
+        System.out.printf(Locale.ROOT, "ramp: %d connected, %d failed in %ds%n", connectedCount(), connectFailures, elapsedSeconds());
+    }
+
+    private void steadyState() throws Exception
+    {
+        long baselineHeap = memory.heapAfterFullGc();
+        long steadyStart = System.nanoTime();
+        long end = steadyStart + options.duration.toNanos();
+        long nextChurn = steadyStart + TimeUnit.MINUTES.toNanos(1);
+        long broadcastTimer = startBroadcasts();
+        try
+        {
+            while (System.nanoTime() < end)
+            {
+                TimeUnit.NANOSECONDS.sleep(Math.min(options.interval.toNanos(), Math.max(0, end - System.nanoTime())));
+                report();
+                if (options.churn > 0 && System.nanoTime() >= nextChurn)
+                {
+                    churn();
+                    nextChurn += TimeUnit.MINUTES.toNanos(1);
+                }
+            }
+        }
+        finally
+        {
+            if (broadcastTimer != -1)
+            {
+                clientVertx.cancelTimer(broadcastTimer);
+            }
+        }
+        long finalHeap = memory.heapAfterFullGc();
+        double hours = Math.max(1.0 / 60, (System.nanoTime() - steadyStart) / (double) TimeUnit.HOURS.toNanos(1));
+        double growth = baselineHeap <= 0 ? 0 : (finalHeap - baselineHeap) * 100.0 / baselineHeap / hours;
+        System.out.printf(Locale.ROOT, "heap after full GC: %d MB -> %d MB, %.1f%% per hour%n", baselineHeap / MB, finalHeap / MB, growth);
+        if (growth > options.maxHeapGrowth)
+        {
+            failures.add(String.format(Locale.ROOT, "heap after full GC grew %.1f%% per hour, limit %.1f%%", growth, options.maxHeapGrowth));
+        }
+        if (options.isEmbedded())
+        {
+            checkConsumerGrowth();
+        }
+    }
+
+    /**
+     * Sends {@code --broadcast-rate} broadcast requests per second from random connected clients.
+     *
+     * @return the timer id, -1 when broadcasting is off
+     */
+    private long startBroadcasts()
+    {
+        if (options.broadcastRate <= 0)
+        {
+            return -1;
+        }
+        double perTick = options.broadcastRate / 100;
+        double[] owed = {0};
+        return clientVertx.setPeriodic(10, id -> {
+            ThreadLocalRandom timerRandom = ThreadLocalRandom.current();
+            owed[0] += perTick;
+            for (; owed[0] >= 1; owed[0]--)
+            {
+                LoadClient sender = clients.get(timerRandom.nextInt(clients.size()));
+                if (sender.isConnected())
+                {
+                    sender.broadcast(groupName(zipf.sample(timerRandom)));
+                }
+            }
+        });
+    }
+
+    /**
+     * Disconnects a {@code --churn} fraction of the clients and connects them again.
+     */
+    private void churn() throws Exception
+    {
+        int count = (int) Math.round(clients.size() * options.churn);
+        List<LoadClient> shuffled = new ArrayList<>(clients);
+        Collections.shuffle(shuffled, new Random(random.nextLong()));
+        List<LoadClient> churned = shuffled.subList(0, count);
+        List<Future<Void>> pending = new ArrayList<>();
+        for (LoadClient churning : churned)
+        {
+            pending.add(churning.close());
+        }
+        awaitAll(pending);
+        pending.clear();
+        for (LoadClient churning : churned)
+        {
+            pending.add(churning.connect());
+        }
+        awaitAll(pending);
+        if (options.isEmbedded())
+        {
+            //sampled once the reconnects are done, so the counts describe the same number of clients
+            consumerSamples.add(new long[]{VertxSocketHttpWebSocketConfigurator.getConnectionCount(),
+                    VertxSocketHttpWebSocketConfigurator.getGroupConsumerCount(),
+                    VertxSocketHttpWebSocketConfigurator.getConnectionConsumerCount()});
+        }
+        System.out.printf(Locale.ROOT, "churn: %d clients reconnected, %d connected%n", count, connectedCount());
+    }
+
+    /**
+     * Fails when the consumer counts grew across the churn cycles while the connection count stayed flat.
+     */
+    private void checkConsumerGrowth()
+    {
+        if (consumerSamples.size() < 2)
+        {
+            return;
+        }
+        long[] first = consumerSamples.get(0);
+        long[] last = consumerSamples.get(consumerSamples.size() - 1);
+        boolean flat = Math.abs(last[0] - first[0]) <= Math.max(1, first[0] / 100);
+        if (flat && last[1] > first[1] + Math.max(1, first[1] / 20))
+        {
+            failures.add("group consumers grew from " + first[1] + " to " + last[1] + " with " + last[0] + " connections");
+        }
+        if (flat && last[2] > first[2] + Math.max(1, first[2] / 20))
+        {
+            failures.add("connection consumers grew from " + first[2] + " to " + last[2] + " with " + last[0] + " connections");
+        }
+    }
+
+    private void disconnect() throws Exception
+    {
+        List<Future<Void>> pending = new ArrayList<>();
+        for (LoadClient closing : clients)
+        {
+            pending.add(closing.close());
+        }
+        awaitAll(pending);
+        if (!options.isEmbedded())
+        {
+            return;
+        }
+        long deadline = System.nanoTime() + options.grace.toNanos();
+        List<String> orphans = VertxSocketHttpWebSocketConfigurator.getOrphanedRegistrations();
+        while ((VertxSocketHttpWebSocketConfigurator.getConnectionCount() != 0 || !orphans.isEmpty()) && System.nanoTime() < deadline)
+        {
+            TimeUnit.MILLISECONDS.sleep(100);
+            orphans = VertxSocketHttpWebSocketConfigurator.getOrphanedRegistrations();
+        }
+        if (VertxSocketHttpWebSocketConfigurator.getConnectionCount() != 0)
+        {
+            failures.add(VertxSocketHttpWebSocketConfigurator.getConnectionCount() + " connections still registered after "
+                    + options.grace.toSeconds() + "s");
+        }
+        if (!orphans.isEmpty())
+        {
+            failures.add(orphans.size() + " orphaned registrations, first " + orphans.subList(0, Math.min(20, orphans.size())));
+        }
+    }
+
+    private void report()
+    {
+        Histogram echo = echoLatency.getIntervalHistogram();
+        Histogram broadcast = broadcastLatency.getIntervalHistogram();
+        echoTotal.add(echo);
+        broadcastTotal.add(broadcast);
+        long[] gc = memory.drainCollections();
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                "%6ds connected=%d echo[%s] broadcast[%s] heapAfterGc=%dMB direct=%dMB nettyDirect=%dMB gc=%d/%dms max=%dms",
+                elapsedSeconds(), connectedCount(), percentiles(echo), percentiles(broadcast), memory.heapAfterGc() / MB,
+                memory.directMemory() / MB, memory.nettyDirectMemory() / MB, gc[0], gc[1], gc[2]));
+        if (options.isEmbedded())
+        {
+            long overflows = 0;
+            for (WebSocketOverflowPolicy policy : WebSocketOverflowPolicy.values())
+            {
+                overflows += WebSocketStatistics.getOverflowCount(policy);
+            }
+            line.append(String.format(Locale.ROOT, " connections=%d groups=%d groupConsumers=%d connectionConsumers=%d sessions=%d queued=%d overflows=%d",
+                    VertxSocketHttpWebSocketConfigurator.getConnectionCount(), VertxSocketHttpWebSocketConfigurator.getGroupCount(),
+                    VertxSocketHttpWebSocketConfigurator.getGroupConsumerCount(), VertxSocketHttpWebSocketConfigurator.getConnectionConsumerCount(),
+                    VertxSocketHttpWebSocketConfigurator.getRetainedSessionCount(), VertxSocketHttpWebSocketConfigurator.getQueuedMessageCount(),
+                    overflows));
+            long connections = VertxSocketHttpWebSocketConfigurator.getConnectionCount();
+            if (connections > 0 && memory.heapAfterGc() > 0)
+            {
+                line.append(" heapPerConnection=")
+                    .append(memory.heapAfterGc() / connections)
+                    .append('B');
+            }
+        }
+        System.out.println(line);
+    }
+
+    private void summary()
+    {
+        System.out.printf(Locale.ROOT, "total echo[%s] broadcast[%s]%n", percentiles(echoTotal), percentiles(broadcastTotal));
+        if (failures.isEmpty())
+        {
+            System.out.println("PASSED");
+        }
+        else
+        {
+            failures.forEach(failure -> System.out.println("FAILED: " + failure));
+        }
+    }
+
+    private static String percentiles(Histogram histogram)
+    {
+        if (histogram.getTotalCount() == 0)
+        {
+            return "n=0";
+        }
+        return String.format(Locale.ROOT, "n=%d p50=%dus p99=%dus p999=%dus", histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000, histogram.getValueAtPercentile(99) / 1000,
+                histogram.getValueAtPercentile(99.9) / 1000);
+    }
+
+    private WebSocketConnectOptions connectOptions(EmbeddedServer server, int index)
+    {
+        if (server != null)
+        {
+            //spread over loopback addresses so the client ports of one address are not exhausted
+            return new WebSocketConnectOptions().setHost("127.0.0." + (1 + index / CONNECTIONS_PER_ADDRESS))
+                                                .setPort(server.port())
+                                                .setURI("/");
+        }
+        String path = options.target.getRawPath();
+        return new WebSocketConnectOptions().setHost(options.target.getHost())
+                                            .setPort(options.target.getPort() == -1 ? 80 : options.target.getPort())
+                                            .setURI(path == null || path.isEmpty() ? "/" : path);
+    }
+
+    private List<String> groupsForClient()
+    {
+        Set<String> groups = new LinkedHashSet<>();
+        while (groups.size() < options.groupsPerClient)
+        {
+            groups.add(groupName(zipf.sample(random)));
+        }
+        return List.copyOf(groups);
+    }
+
+    private void awaitAll(List<Future<Void>> pending) throws Exception
+    {
+        for (Future<Void> future : pending)
+        {
+            try
+            {
+                future.toCompletionStage()
+                      .toCompletableFuture()
+                      .get(60, TimeUnit.SECONDS);
+            }
+            catch (Exception e)
+            {
+                connectFailures++;
+            }
+        }
+    }
+
+    private long connectedCount()
+    {
+        return clients.stream()
+                      .filter(LoadClient::isConnected)
+                      .count();
+    }
+
+    private long elapsedSeconds()
+    {
+        return Duration.ofNanos(System.nanoTime() - started)
+                       .toSeconds();
+    }
+
+    private static String groupName(int index)
+    {
+        return "group-" + index;
+    }
+
+    /**
+     * Zipf distributed group indexes with exponent 1, so a few groups are large and most are small.
+     */
+    private static final class Zipf
+    {
+        private final double[] cumulative;
+
+        private Zipf(int size)
+        {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int i = 0; i < size; i++)
+            {
+                sum += 1.0 / (i + 1);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < size; i++)
+            {
+                cumulative[i] /= sum;
+            }
+        }
+
+        private int sample(RandomGenerator random)
+        {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.guicedee.vertx.websockets.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Command line options of the load harness, see {@code docs/load-testing.md}.
+ */
+final class LoadTestOptions
+{
+    int connections = 1_000;
+    int clientLoops = Runtime.getRuntime()
+                             .availableProcessors();
+    int ramp = 500;
+    int groups = 100;
+    int groupsPerClient = 3;
+    double inboundRate = 1;
+    double broadcastRate = 10;
+    Duration duration = Duration.ofMinutes(10);
+    double churn = 0;
+    URI target;
+    Duration interval = Duration.ofSeconds(10);
+    Duration grace = Duration.ofSeconds(10);
+    double maxHeapGrowth = 10;
+    int footprint;
+
+    /**
+     * Parses {@code --name value} pairs.
+     *
+     * @param args the command line
+     * @return the options
+     * @throws IllegalArgumentException for an unknown flag, a missing value or a value out of range
+     */
+    static LoadTestOptions parse(String... args)
+    {
+        LoadTestOptions options = new LoadTestOptions();
+        for (int i = 0; i < args.length; i++)
+        {
+            String flag = args[i];
+            if (i + 1 >= args.length)
+            {
+                throw new IllegalArgumentException("Missing value for " + flag);
+            }
+            String value = args[++i];
+            switch (flag)
+            {
+                case "--connections" -> options.connections = Integer.parseInt(value);
+                case "--client-loops" -> options.clientLoops = Integer.parseInt(value);
+                case "--ramp" -> options.ramp = Integer.parseInt(value);
+                case "--groups" -> options.groups = Integer.parseInt(value);
+                case "--groups-per-client" -> options.groupsPerClient = Integer.parseInt(value);
+                case "--inbound-rate" -> options.inboundRate = Double.parseDouble(value);
+                case "--broadcast-rate" -> options.broadcastRate = Double.parseDouble(value);
+                case "--duration" -> options.duration = duration(value);
+                case "--churn" -> options.churn = Double.parseDouble(value);
+                case "--target" -> options.target = URI.create(value);
+                case "--interval" -> options.interval = duration(value);
+                case "--grace" -> options.grace = duration(value);
+                case "--max-heap-growth" -> options.maxHeapGrowth = Double.parseDouble(value);
+                case "--footprint" -> options.footprint = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option " + flag);
+            }
+        }
+        options.validate();
+        return options;
+    }
+
+    boolean isEmbedded()
+    {
+        return target == null;
+    }
+
+    private void validate()
+    {
+        if (connections <= 0 || clientLoops <= 0 || ramp <= 0 || groups <= 0)
+        {
+            throw new IllegalArgumentException("--connections, --client-loops, --ramp and --groups must be > 0");
+        }
+        if (groupsPerClient < 0 || groupsPerClient > groups)
+        {
+            throw new IllegalArgumentException("--groups-per-client must be between 0 and --groups");
+        }
+        if (inboundRate < 0 || broadcastRate < 0)
+        {
+            throw new IllegalArgumentException("--inbound-rate and --broadcast-rate must be >= 0");
+        }
+        if (churn < 0 || churn > 1)
+        {
+            throw new IllegalArgumentException("--churn must be between 0 and 1");
+        }
+        if (footprint < 0 || footprint > 0 && target != null)
+        {
+            throw new IllegalArgumentException("--footprint must be >= 0 and measures the embedded server only");
+        }
+        if (target != null && !"ws".equals(target.getScheme()))
+        {
+            throw new IllegalArgumentException("--target must be a ws:// URI");
+        }
+    }
+
+    /**
+     * Reads {@code 30s}, {@code 10m}, {@code 2h} or an ISO-8601 duration such as {@code PT90S}.
+     */
+    private static Duration duration(String value)
+    {
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("pt"))
+        {
+            return Duration.parse(value);
+        }
+        long amount = Long.parseLong(lower.substring(0, lower.length() - 1));
+        return switch (lower.charAt(lower.length() - 1))
+        {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unknown duration " + value);
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return "connections=" + connections + ", clientLoops=" + clientLoops + ", ramp=" + ramp + "/s, groups=" + groups
+                + ", groupsPerClient=" + groupsPerClient + ", inboundRate=" + inboundRate + "/s, broadcastRate=" + broadcastRate
+                + "/s, duration=" + duration + ", churn=" + churn + "/min, target=" + (target == null ? "embedded" : target);
+    }
+}
@@ -0,0 +1,55 @@
+package com.guicedee.vertx.websockets.loadtest;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.client.services.websocket.IGuicedWebSocket;
+import com.guicedee.client.services.websocket.IWebSocketMessageReceiver;
+import com.guicedee.client.services.websocket.WebSocketMessageReceiver;
+import io.smallrye.mutiny.Uni;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Server side of the load harness.
+ *
+ * <ul>
+ *     <li>{@value #JOIN} joins the connection to {@code data.groups}</li>
+ *     <li>{@value #ECHO} writes {@code data.sent} back to the connection, for the round trip</li>
+ *     <li>{@value #BROADCAST} publishes {@code data.sent} to {@code data.group}</li>
+ * </ul>
+ *
+ * <p>A remote {@code --target} must deploy this listener for the harness to work.</p>
+ */
+public class LoadTestReceiver implements IWebSocketMessageReceiver<Void, LoadTestReceiver>
+{
+    static final String JOIN = "loadtest.join";
+    static final String ECHO = "loadtest.echo";
+    static final String BROADCAST = "loadtest.broadcast";
+
+    @Override
+    public Set<String> messageNames()
+    {
+        return Set.of(JOIN, ECHO, BROADCAST);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Uni<Void> receiveMessage(WebSocketMessageReceiver<?> message)
+    {
+        IGuicedWebSocket ws = IGuiceContext.get(IGuicedWebSocket.class);
+        switch (message.getAction())
+        {
+            case JOIN -> ws.addToGroups((List<String>) message.getData()
+                                                              .get("groups"));
+            case ECHO -> ws.broadcastMessage(message.getBroadcastGroup(), "{\"type\":\"echo\",\"sent\":" + message.getData()
+                                                                                                                 .get("sent") + "}");
+            case BROADCAST -> ws.broadcastMessage((String) message.getData()
+                                                                  .get("group"), "{\"type\":\"broadcast\",\"sent\":" + message.getData()
+                                                                                                                              .get("sent") + "}");
+            default -> {
+            }
+        }
+        return Uni.createFrom()
+                  .voidItem();
+    }
+}
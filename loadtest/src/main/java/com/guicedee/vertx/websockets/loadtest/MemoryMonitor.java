@@ -0,0 +1,149 @@
+package com.guicedee.vertx.websockets.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap, direct memory and garbage collection figures of the harness JVM.
+ *
+ * <p>Heap after GC is taken from the collectors' own notifications, so it is the live set the last
+ * collection left behind rather than a sample that includes garbage. Collection time is the
+ * duration a collector reports, which for concurrent cycles is not all pause.</p>
+ */
+final class MemoryMonitor
+{
+    private final Set<String> heapPools = new HashSet<>();
+    private final AtomicLong heapAfterGc = new AtomicLong(-1);
+    private final AtomicLong collections = new AtomicLong();
+    private final AtomicLong collectionMillis = new AtomicLong();
+    private final AtomicLong maxCollectionMillis = new AtomicLong();
+
+    private MemoryMonitor()
+    {
+    }
+
+    /**
+     * Subscribes to the notifications of every garbage collector.
+     *
+     * @return the monitor
+     */
+    static MemoryMonitor install()
+    {
+        MemoryMonitor monitor = new MemoryMonitor();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+            {
+                monitor.heapPools.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            if (collector instanceof NotificationEmitter emitter)
+            {
+                emitter.addNotificationListener((notification, handback) -> {
+                    if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+                    {
+                        monitor.collected(GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()));
+                    }
+                }, null, null);
+            }
+        }
+        return monitor;
+    }
+
+    private void collected(GarbageCollectionNotificationInfo info)
+    {
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo()
+                                                       .getMemoryUsageAfterGc()
+                                                       .entrySet())
+        {
+            if (heapPools.contains(pool.getKey()))
+            {
+                used += pool.getValue()
+                            .getUsed();
+            }
+        }
+        heapAfterGc.set(used);
+        long duration = info.getGcInfo()
+                            .getDuration();
+        collections.incrementAndGet();
+        collectionMillis.addAndGet(duration);
+        maxCollectionMillis.accumulateAndGet(duration, Math::max);
+    }
+
+    /**
+     * Returns the heap in use after the most recent collection.
+     *
+     * @return bytes, or -1 before the first collection
+     */
+    long heapAfterGc()
+    {
+        return heapAfterGc.get();
+    }
+
+    /**
+     * Runs a full collection and returns the heap still in use.
+     *
+     * @return bytes in use after the collection
+     */
+    long heapAfterFullGc()
+    {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean()
+                                .getHeapMemoryUsage()
+                                .getUsed();
+    }
+
+    /**
+     * Returns the JDK direct buffer pool usage
+     *
+     * @return bytes in use by direct {@code ByteBuffer}s
+     */
+    long directMemory()
+    {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+        {
+            if ("direct".equals(pool.getName()))
+            {
+                return pool.getMemoryUsed();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the direct memory held by Netty's pooled allocator, which may not show in the JDK pool
+     *
+     * @return bytes in use by the pooled allocator
+     */
+    long nettyDirectMemory()
+    {
+        return PooledByteBufAllocator.DEFAULT.metric()
+                                             .usedDirectMemory();
+    }
+
+    /**
+     * Returns the collections since the last call and resets the interval counters.
+     *
+     * @return count, total and longest collection time in milliseconds
+     */
+    long[] drainCollections()
+    {
+        return new long[]{collections.getAndSet(0), collectionMillis.getAndSet(0), maxCollectionMillis.getAndSet(0)};
+    }
+}
@@ -1,8 +1,8 @@
 package com.guicedee.vertx.websockets;
 
-import tools.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
 import com.google.inject.Inject;
+import com.google.inject.OutOfScopeException;
 import com.guicedee.client.IGuiceContext;
 import com.guicedee.client.scopes.CallScope;
 import com.guicedee.client.scopes.CallScopeProperties;
@@ -11,16 +11,28 @@ import com.guicedee.client.services.websocket.WebSocketMessageReceiver;
 import com.guicedee.client.services.websocket.GuicedWebSocketOnAddToGroup;
 import com.guicedee.client.services.websocket.GuicedWebSocketOnPublish;
 import com.guicedee.client.services.websocket.GuicedWebSocketOnRemoveFromGroup;
+import io.smallrye.mutiny.Uni;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
 import lombok.extern.log4j.Log4j2;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.ServiceLoader;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.StringJoiner;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 /**
  * Call-scoped WebSocket facade that coordinates group membership, message
@@ -39,12 +51,50 @@ import java.util.concurrent.ExecutionException;
 @Log4j2
 public class GuicedWebSocket extends AbstractVerticle implements IGuicedWebSocket
 {
-    @Inject
-    private CallScopeProperties callScopeProperties;
-
     @Inject
     Vertx vertx;
 
+    /**
+     * The connection this instance was resolved for, null outside of a WebSocket call scope
+     */
+    private volatile @Nullable WebSocketConnection connection;
+
+    /**
+     * Returns the properties of the call scope the current invocation runs in.
+     *
+     * <p>Resolved on every call rather than injected: this instance is created when the connection is
+     * accepted, while each inbound message runs in its own scope with its own properties. Outside of
+     * a call scope the properties captured when the connection was accepted are used.</p>
+     *
+     * @return the current call-scope properties
+     */
+    private CallScopeProperties callScopeProperties()
+    {
+        try
+        {
+            return IGuiceContext.get(CallScopeProperties.class);
+        }
+        catch (OutOfScopeException e)
+        {
+            WebSocketConnection current = connection;
+            if (current == null || current.getScopeProperties() == null)
+            {
+                throw e;
+            }
+            return current.getScopeProperties();
+        }
+    }
+
+    /**
+     * Binds this instance to the connection it serves, so sends to the current connection need no lookup.
+     *
+     * @param connection the connection accepted in this call scope
+     */
+    void setConnection(@Nullable WebSocketConnection connection)
+    {
+        this.connection = connection;
+    }
+
     /**
      * Adds this WebSocket connection to a named group.
      * 
@@ -62,18 +112,12 @@ public class GuicedWebSocket extends AbstractVerticle implements IGuicedWebSocke
     public void addToGroup(@NonNull String groupName) throws WebSocketException
     {
         try {
-            Set<GuicedWebSocketOnAddToGroup> onAdd = IGuiceContext.loaderToSet(ServiceLoader.load(GuicedWebSocketOnAddToGroup.class));
-            CompletableFuture<Boolean> performed = new CompletableFuture<>();
-            if(onAdd.isEmpty()) {
-                performed.complete(false);
-            } else {
-                for (var guicedWebSocketOnAddToGroup : onAdd) {
-                    performed = guicedWebSocketOnAddToGroup.onAddToGroup(groupName);
-                    if(performed.get())
-                        break;
-                }
+            GuicedWebSocketOnAddToGroup<?>[] onAdd = GuicedWebSocketHandlers.onAddToGroup();
+            boolean performed = false;
+            for (int i = 0; i < onAdd.length && !performed; i++) {
+                performed = Boolean.TRUE.equals(onAdd[i].onAddToGroup(groupName).get());
             }
-            if(!performed.get()) {
+            if(!performed) {
                 ServerWebSocket serverWebSocket1 = IGuiceContext.get(ServerWebSocket.class);
                 VertxSocketHttpWebSocketConfigurator.addToGroup(groupName, serverWebSocket1);
             }
@@ -99,18 +143,12 @@ public class GuicedWebSocket extends AbstractVerticle implements IGuicedWebSocke
     public void removeFromGroup(@NonNull String groupName) throws WebSocketException
     {
         try {
-            Set<GuicedWebSocketOnRemoveFromGroup> onRemove = IGuiceContext.loaderToSet(ServiceLoader.load(GuicedWebSocketOnRemoveFromGroup.class));
-            CompletableFuture<Boolean> performed = new CompletableFuture<>();
-            if(onRemove.isEmpty()) {
-                performed.complete(false);
-            } else {
-                for (var guicedWebSocketOnRemoveFromGroup : onRemove) {
-                    performed = guicedWebSocketOnRemoveFromGroup.onRemoveFromGroup(groupName);
-                    if(performed.get())
-                        break;
-                }
+            GuicedWebSocketOnRemoveFromGroup<?>[] onRemove = GuicedWebSocketHandlers.onRemoveFromGroup();
+            boolean performed = false;
+            for (int i = 0; i < onRemove.length && !performed; i++) {
+                performed = Boolean.TRUE.equals(onRemove[i].onRemoveFromGroup(groupName).get());
             }
-            if(!performed.get()) {
+            if(!performed) {
                 ServerWebSocket serverWebSocket1 = IGuiceContext.get(ServerWebSocket.class);
                 VertxSocketHttpWebSocketConfigurator.removeFromGroup(groupName, serverWebSocket1);
             }
@@ -124,7 +162,7 @@ public class GuicedWebSocket extends AbstractVerticle implements IGuicedWebSocke
      *
      * <p>This method publishes the message to the group's EventBus address;
      * all connected clients subscribed to the group receive the message.
-     * If the group does not exist, it is created implicitly.</p>
+     * A group nobody has joined is not created; the message is dropped on this node.</p>
      *
      * @param groupName the group identifier (not null, e.g., "chat:lobby")
      * @param message the message payload (not null; will be text-encoded)
@@ -136,73 +174,636 @@ public class GuicedWebSocket extends AbstractVerticle implements IGuicedWebSocke
      */
     public void broadcastMessage(@NonNull String groupName, @NonNull String message) throws WebSocketException
     {
-        try {
-            String contextId = null;
-            if(callScopeProperties.getProperties()
-                    .get("RequestContextId")!= null)
-            {
-                contextId = callScopeProperties.getProperties()
-                        .get("RequestContextId")
-                        .toString();
+        String contextId = null;
+        if(callScopeProperties().getProperties()
+                .get("RequestContextId")!= null)
+        {
+            contextId = callScopeProperties().getProperties()
+                    .get("RequestContextId")
+                    .toString();
+        }
+
+        boolean performed = false;
+        if(Strings.isNullOrEmpty(contextId)) {
+            GuicedWebSocketOnPublish<?>[] onPublish = GuicedWebSocketHandlers.onPublish();
+            for (int i = 0; i < onPublish.length && !performed; i++) {
+                try {
+                    performed = onPublish[i].publish(groupName, message);
+                } catch (Exception e) {
+                    throw new WebSocketException(e);
+                }
+            }
+        }
+        if(!performed) {
+
+            //a group nobody joined is not registered, that would leave an empty group behind for every unknown name
+            if (log.isDebugEnabled() && !VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey(groupName)
+                    && !VertxSocketHttpWebSocketConfigurator.connections.containsKey(groupName)
+                    && VertxSocketHttpWebSocketConfigurator.getTopicMatcher().match(groupName).isEmpty()) {
+                log.debug("WS Group " + groupName + " has no members on this node");
+            }
+            VertxSocketHttpWebSocketConfigurator.publishToGroup(groupName, message);
+        }
+    }
+
+    /**
+     * Broadcasts the latest value for a key to all WebSocket connections in a named group.
+     *
+     * <p>Intended for {@link WebSocketGroupOptions#isConflating() conflating} state-snapshot groups:
+     * a socket that cannot keep up skips the intermediate values of a key and receives the newest
+     * one as soon as it is writable. Keyed broadcasts bypass the {@link GuicedWebSocketOnPublish} chain.</p>
+     *
+     * @param groupName the group identifier (not null, e.g., "prices")
+     * @param key the conflation key (not null, e.g., the instrument)
+     * @param message the message payload (not null)
+     * @throws NullPointerException if any argument is null
+     *
+     * @see VertxSocketHttpWebSocketConfigurator#configureGroup(String, WebSocketGroupOptions)
+     */
+    public void broadcastMessage(@NonNull String groupName, @NonNull String key, @NonNull String message)
+    {
+        VertxSocketHttpWebSocketConfigurator.publishToGroup(groupName, new WebSocketKeyedMessage(key, message));
+    }
+
+    /**
+     * Adds this WebSocket connection to several groups in one call.
+     *
+     * <p>Each group is offered to the {@link GuicedWebSocketOnAddToGroup} chain as in
+     * {@link #addToGroup(String)}; the groups no handler claims are joined together in a single
+     * registry pass.</p>
+     *
+     * @param groupNames the group identifiers (not null)
+     * @throws WebSocketException if a handler fails or a group is full
+     *
+     * @see VertxSocketHttpWebSocketConfigurator#addToGroups(Collection, ServerWebSocket)
+     */
+    public void addToGroups(@NonNull Collection<String> groupNames) throws WebSocketException
+    {
+        List<String> unclaimed = new ArrayList<>(groupNames.size());
+        GuicedWebSocketOnAddToGroup<?>[] onAdd = GuicedWebSocketHandlers.onAddToGroup();
+        for (String groupName : groupNames)
+        {
+            boolean performed = false;
+            try {
+                for (int i = 0; i < onAdd.length && !performed; i++) {
+                    performed = Boolean.TRUE.equals(onAdd[i].onAddToGroup(groupName).get());
+                }
+            } catch (Exception e) {
+                throw new WebSocketException("Failed to add to group: " + groupName, e);
+            }
+            if (!performed) {
+                unclaimed.add(groupName);
+            }
+        }
+        if (!unclaimed.isEmpty())
+        {
+            VertxSocketHttpWebSocketConfigurator.addToGroups(unclaimed, currentSocket());
+        }
+    }
+
+    /**
+     * Removes this WebSocket connection from several groups in one call.
+     *
+     * <p>Each group is offered to the {@link GuicedWebSocketOnRemoveFromGroup} chain as in
+     * {@link #removeFromGroup(String)}; the remaining groups are left in a single registry pass.</p>
+     *
+     * @param groupNames the group identifiers (not null)
+     * @throws WebSocketException if a handler fails
+     */
+    public void removeFromGroups(@NonNull Collection<String> groupNames) throws WebSocketException
+    {
+        List<String> unclaimed = new ArrayList<>(groupNames.size());
+        GuicedWebSocketOnRemoveFromGroup<?>[] onRemove = GuicedWebSocketHandlers.onRemoveFromGroup();
+        for (String groupName : groupNames)
+        {
+            boolean performed = false;
+            try {
+                for (int i = 0; i < onRemove.length && !performed; i++) {
+                    performed = Boolean.TRUE.equals(onRemove[i].onRemoveFromGroup(groupName).get());
+                }
+            } catch (Exception e) {
+                throw new WebSocketException("Failed to remove from group: " + groupName, e);
+            }
+            if (!performed) {
+                unclaimed.add(groupName);
             }
+        }
+        if (!unclaimed.isEmpty())
+        {
+            VertxSocketHttpWebSocketConfigurator.removeFromGroups(unclaimed, currentSocket());
+        }
+    }
+
+    /**
+     * Removes this WebSocket connection from every group it joined except {@code Everyone}.
+     *
+     * <p>Only memberships held in the default group registry are removed; groups managed by
+     * {@link GuicedWebSocketOnAddToGroup} handlers are not consulted.</p>
+     */
+    public void removeFromAllGroups()
+    {
+        VertxSocketHttpWebSocketConfigurator.removeFromAllGroups(currentSocket());
+    }
 
-            Set<GuicedWebSocketOnPublish> onRemove = IGuiceContext.loaderToSet(ServiceLoader.load(GuicedWebSocketOnPublish.class));
-            CompletableFuture<Boolean> performed = new CompletableFuture<>();
-            if(Strings.isNullOrEmpty(contextId)) {
-                if(onRemove.isEmpty()) {
-                    performed.complete(false);
+    /**
+     * Broadcasts one message to several groups, delivering it once to each socket that is a member of any of them.
+     *
+     * <p>Each group is offered to the {@link GuicedWebSocketOnPublish} chain as in
+     * {@link #broadcastMessage(String, String)}; the groups no handler claims are written together
+     * with per-socket de-duplication.</p>
+     *
+     * @param groupNames the group identifiers (not null)
+     * @param message the message payload (not null)
+     * @throws WebSocketException if a publish handler fails
+     */
+    public void broadcastMessage(@NonNull Collection<String> groupNames, @NonNull String message) throws WebSocketException
+    {
+        Object contextId = callScopeProperties().getProperties()
+                                              .get("RequestContextId");
+        GuicedWebSocketOnPublish<?>[] onPublish = contextId == null || Strings.isNullOrEmpty(contextId.toString())
+                ? GuicedWebSocketHandlers.onPublish()
+                : new GuicedWebSocketOnPublish<?>[0];
+        List<String> unclaimed = new ArrayList<>(groupNames.size());
+        for (String groupName : groupNames)
+        {
+            boolean performed = false;
+            for (int i = 0; i < onPublish.length && !performed; i++) {
+                try {
+                    performed = onPublish[i].publish(groupName, message);
+                } catch (Exception e) {
+                    throw new WebSocketException(e);
                 }
-                else for (var guicedWebSocketOnRemoveFromGroup : onRemove) {
+            }
+            if (!performed) {
+                unclaimed.add(groupName);
+            }
+        }
+        if (!unclaimed.isEmpty())
+        {
+            VertxSocketHttpWebSocketConfigurator.publishToGroups(unclaimed, message);
+        }
+    }
+
+    private ServerWebSocket currentSocket()
+    {
+        WebSocketConnection current = connection;
+        return current != null ? current.getSocket() : IGuiceContext.get(ServerWebSocket.class);
+    }
+
+    /**
+     * Adds this WebSocket connection to a named group without blocking the calling thread.
+     *
+     * <p>The {@link GuicedWebSocketOnAddToGroup} chain is composed asynchronously in
+     * registration order; the first handler whose future completes with {@code true} wins
+     * and the remaining handlers are not invoked. When no handler claims the join the
+     * connection is added to the default group registry.</p>
+     *
+     * @param groupName the group identifier (not null, e.g., "chat:lobby")
+     * @return a Uni that completes once the join is handled, failing with {@link WebSocketException}
+     *
+     * @see #addToGroup(String)
+     */
+    public Uni<Void> addToGroupAsync(@NonNull String groupName)
+    {
+        ServerWebSocket socket = IGuiceContext.get(ServerWebSocket.class);
+        return handledBy(GuicedWebSocketHandlers.onAddToGroup(), 0, handler -> handler.onAddToGroup(groupName))
+                .onItem().invoke(performed -> {
+                    if (!performed) {
+                        VertxSocketHttpWebSocketConfigurator.addToGroup(groupName, socket);
+                    }
+                })
+                .onFailure().transform(e -> e instanceof WebSocketException ? e : new WebSocketException("Failed to add to group: " + groupName, e))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Removes this WebSocket connection from a named group without blocking the calling thread.
+     *
+     * <p>Composes the {@link GuicedWebSocketOnRemoveFromGroup} chain with the same
+     * first-handler-wins semantics as {@link #addToGroupAsync(String)}.</p>
+     *
+     * @param groupName the group identifier (not null, e.g., "chat:lobby")
+     * @return a Uni that completes once the removal is handled, failing with {@link WebSocketException}
+     *
+     * @see #removeFromGroup(String)
+     */
+    public Uni<Void> removeFromGroupAsync(@NonNull String groupName)
+    {
+        ServerWebSocket socket = IGuiceContext.get(ServerWebSocket.class);
+        return handledBy(GuicedWebSocketHandlers.onRemoveFromGroup(), 0, handler -> handler.onRemoveFromGroup(groupName))
+                .onItem().invoke(performed -> {
+                    if (!performed) {
+                        VertxSocketHttpWebSocketConfigurator.removeFromGroup(groupName, socket);
+                    }
+                })
+                .onFailure().transform(e -> e instanceof WebSocketException ? e : new WebSocketException("Failed to remove from group: " + groupName, e))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Broadcasts a message to a named group without blocking the calling thread.
+     *
+     * <p>{@link GuicedWebSocketOnPublish} handlers are invoked in order until one claims the
+     * publish, exactly as in {@link #broadcastMessage(String, String)}; otherwise the message
+     * is written to the local group members.</p>
+     *
+     * @param groupName the group identifier (not null, e.g., "chat:lobby")
+     * @param message the message payload (not null)
+     * @return a Uni that completes once the message is handed off, failing with {@link WebSocketException}
+     *
+     * @see #broadcastMessage(String, String)
+     */
+    public Uni<Void> broadcastMessageAsync(@NonNull String groupName, @NonNull String message)
+    {
+        Object contextId = callScopeProperties().getProperties()
+                                              .get("RequestContextId");
+        GuicedWebSocketOnPublish<?>[] onPublish = contextId == null || Strings.isNullOrEmpty(contextId.toString())
+                ? GuicedWebSocketHandlers.onPublish()
+                : new GuicedWebSocketOnPublish<?>[0];
+        return handledBy(onPublish, 0, handler -> {
                     try {
-                        performed.complete(guicedWebSocketOnRemoveFromGroup.publish(groupName,message));
+                        return CompletableFuture.completedFuture(handler.publish(groupName, message));
                     } catch (Exception e) {
-                        throw new WebSocketException(e);
+                        return CompletableFuture.failedFuture(e);
                     }
-                    try {
-                        if (performed.get())
-                            break;
-                    } catch (InterruptedException e) {
-                        throw new WebSocketException(e);
-                    } catch (ExecutionException e) {
-                        throw new WebSocketException(e);
+                })
+                .onItem().invoke(performed -> {
+                    if (!performed) {
+                        VertxSocketHttpWebSocketConfigurator.publishToGroup(groupName, message);
+                    }
+                })
+                .onFailure().transform(e -> e instanceof WebSocketException ? e : new WebSocketException("Failed to broadcast to " + groupName, e))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Composes a handler chain asynchronously, stopping at the first handler that reports it handled the call.
+     *
+     * @param handlers the ordered handler chain
+     * @param index    the handler to invoke next
+     * @param invoker  invokes a single handler
+     * @return a Uni emitting true if a handler claimed the call
+     */
+    private static <T> Uni<Boolean> handledBy(T[] handlers, int index, Function<T, CompletionStage<Boolean>> invoker)
+    {
+        if (index >= handlers.length)
+        {
+            return Uni.createFrom().item(false);
+        }
+        return Uni.createFrom()
+                  .completionStage(() -> invoker.apply(handlers[index]))
+                  .onItem().transformToUni(performed -> Boolean.TRUE.equals(performed)
+                          ? Uni.createFrom().item(true)
+                          : handledBy(handlers, index + 1, invoker));
+    }
+
+    /**
+     * Writes a text message to a WebSocket.
+     *
+     * <p>The write is routed through the socket's {@link WebSocketConnection} so that it runs on
+     * the owning event loop without taking a shared lock. Sockets that are not registered
+     * are written to directly.</p>
+     * 
+     * @param message the message to write (not null)
+     * @param socket the WebSocket destination (not null)
+     * @throws NullPointerException if message or socket is null
+     */
+    public static void writeMessageToSocket(@NonNull String message, @NonNull ServerWebSocket socket)
+    {
+        WebSocketConnection connection = VertxSocketHttpWebSocketConfigurator.connections.get(socket.textHandlerID());
+        if (connection != null)
+        {
+            connection.write(message);
+        }
+        else
+        {
+            socket.writeTextMessage(message);
+        }
+    }
+
+    /**
+     * Writes a text message to every member of a group.
+     *
+     * <p>Members are partitioned by the event loop that owns their socket: each loop receives a
+     * single task that writes to its own sockets locally, and the caller's own loop is written
+     * inline. Every socket builds its own frame: Netty consumes and releases a frame's payload
+     * when it is written, so a frame can never be shared between sockets. Groups with a
+     * coalescing window in their {@link WebSocketGroupOptions} hand the message to each socket's batch.</p>
+     *
+     * @param message the message to write (not null)
+     * @param group the group to write to (not null)
+     */
+    public static void writeMessageToGroup(@NonNull String message, @NonNull WebSocketGroup group)
+    {
+        writeMessageToGroup(message, null, group);
+    }
+
+    /**
+     * Writes a keyed text message to every member of a group.
+     *
+     * <p>In a {@link WebSocketGroupOptions#isConflating() conflating} group each socket that is
+     * not writable keeps only the newest pending message per key; keys are scoped to the group.
+     * Keyed messages are never held by a coalescing window.</p>
+     *
+     * @param message the message to write (not null)
+     * @param key the conflation key, null for an ordinary broadcast
+     * @param group the group to write to (not null)
+     */
+    public static void writeMessageToGroup(@NonNull String message, @Nullable String key, @NonNull WebSocketGroup group)
+    {
+        int size = group.size();
+        if (size == 0)
+        {
+            return;
+        }
+        WebSocketGroupOptions groupOptions = group.getOptions();
+        if (key == null && groupOptions != null && groupOptions.isCoalescing())
+        {
+            writeToGroup(new CoalescedMessage(message, groupOptions), group, size);
+            return;
+        }
+        if (key != null)
+        {
+            boolean conflate = groupOptions != null && groupOptions.isConflating();
+            writeToGroup(new KeyedPayload(message, group.getName() + ':' + key, conflate), group, size);
+            return;
+        }
+        writeToGroup(message, group, size);
+    }
+
+    /**
+     * Writes a binary message to every member of a group.
+     *
+     * <p>Uses the same per-event-loop dispatch as {@link #writeMessageToGroup(String, WebSocketGroup)}.
+     * The buffer is shared by every recipient; each socket wraps it in its own frame, which reads
+     * through a duplicate of the buffer and leaves it intact for the next socket.</p>
+     *
+     * @param message the message to write (not null)
+     * @param group the group to write to (not null)
+     */
+    public static void writeBinaryToGroup(@NonNull Buffer message, @NonNull WebSocketGroup group)
+    {
+        int size = group.size();
+        if (size == 0)
+        {
+            return;
+        }
+        writeToGroup(message, group, size);
+    }
+
+    /**
+     * Writes a message once to every socket that is a member of any of the given groups.
+     *
+     * <p>Members are collected in a single pass over the groups, de-duplicated by connection and
+     * partitioned by owning event loop, so a socket in several of the groups receives the message
+     * once. The message is written immediately; per-group coalescing and conflation do not apply.</p>
+     *
+     * @param message the message, a {@link String} for text or a {@link Buffer} for binary
+     * @param groups the groups to write to
+     */
+    public static void writeToGroups(@NonNull Object message, @NonNull Collection<WebSocketGroup> groups)
+    {
+        Map<Context, List<WebSocketConnection>> recipients = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        StringJoiner names = new StringJoiner(",");
+        for (WebSocketGroup group : groups)
+        {
+            names.add(group.getName());
+            group.forEachShard((context, members) -> {
+                for (WebSocketConnection member : members)
+                {
+                    if (seen.add(member.getId()))
+                    {
+                        recipients.computeIfAbsent(context, k -> new ArrayList<>())
+                                  .add(member);
                     }
                 }
-            }else {
-                performed.complete(false);
+            });
+        }
+        int size = seen.size();
+        if (size == 0)
+        {
+            return;
+        }
+        WebSocketMetrics[] metrics = GuicedWebSocketHandlers.metrics();
+        long start = metrics.length == 0 ? 0 : System.nanoTime();
+        Context current = Vertx.currentContext();
+        recipients.forEach((context, members) -> {
+            if (context == null || context == current)
+            {
+                writeToMembers(message, members);
+            }
+            else
+            {
+                context.runOnContext(v -> writeToMembers(message, members));
+            }
+        });
+        if (metrics.length != 0)
+        {
+            long elapsed = System.nanoTime() - start;
+            for (WebSocketMetrics metric : metrics)
+            {
+                metric.broadcast(names.toString(), size, elapsed);
+            }
+        }
+    }
+
+    private static void writeToGroup(Object message, WebSocketGroup group, int size)
+    {
+        WebSocketMetrics[] metrics = GuicedWebSocketHandlers.metrics();
+        long start = metrics.length == 0 ? 0 : System.nanoTime();
+        Context current = Vertx.currentContext();
+        group.forEachShard((context, members) -> {
+            if (context == null || context == current)
+            {
+                writeToMembers(message, members);
+            }
+            else
+            {
+                context.runOnContext(v -> writeToMembers(message, members));
             }
-            if(!performed.get()) {
+        });
+        if (metrics.length != 0)
+        {
+            long elapsed = System.nanoTime() - start;
+            for (WebSocketMetrics metric : metrics)
+            {
+                metric.broadcast(group.getName(), size, elapsed);
+            }
+        }
+    }
 
-                if (!VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey(groupName)) {
-                    log.warn("WS Group " + groupName + " not found, creating empty placeholder");
-                    VertxSocketHttpWebSocketConfigurator.groupSockets.put(groupName, new ArrayList<>());
+    private static void writeToMembers(Object message, Iterable<WebSocketConnection> members)
+    {
+        if (message instanceof CoalescedMessage coalesced)
+        {
+            for (WebSocketConnection connection : members)
+            {
+                connection.writeBatched(coalesced.message(), coalesced.options());
+            }
+            return;
+        }
+        if (message instanceof KeyedPayload keyed)
+        {
+            for (WebSocketConnection connection : members)
+            {
+                if (keyed.conflate())
+                {
+                    connection.writeConflated(keyed.payload(), keyed.key());
+                }
+                else
+                {
+                    connection.writePayload(keyed.payload(), keyed.key());
                 }
-                VertxSocketHttpWebSocketConfigurator.groupSockets.get(groupName).forEach(socket -> {
-                    writeMessageToSocket(message, socket);
-                });
             }
-        } catch (InterruptedException e) {
-            throw new WebSocketException("Interrupted while broadcasting to " + groupName, e);
-        } catch (ExecutionException e) {
-            throw new WebSocketException("Failed to broadcast to " + groupName, e);
+            return;
+        }
+        for (WebSocketConnection connection : members)
+        {
+            connection.writePayload(message, null);
         }
     }
 
     /**
-     * Writes a text message to a WebSocket.
-     * 
+     * A broadcast to a group that coalesces its messages per socket
+     */
+    private record CoalescedMessage(String message, WebSocketGroupOptions options)
+    {
+    }
+
+    /**
+     * A keyed broadcast, conflated per socket when its group is conflating
+     */
+    private record KeyedPayload(Object payload, String key, boolean conflate)
+    {
+    }
+
+    /**
+     * Writes a pre-built frame to a WebSocket through its {@link WebSocketConnection}.
+     *
+     * @param frame the frame to write (not null)
+     * @param socket the WebSocket destination (not null)
+     */
+    public static void writeFrameToSocket(@NonNull WebSocketFrame frame, @NonNull ServerWebSocket socket)
+    {
+        WebSocketConnection connection = VertxSocketHttpWebSocketConfigurator.connections.get(socket.textHandlerID());
+        if (connection != null)
+        {
+            connection.write(frame);
+        }
+        else
+        {
+            socket.writeFrame(frame);
+        }
+    }
+
+    /**
+     * Writes a binary message to a WebSocket through its {@link WebSocketConnection}.
+     *
      * @param message the message to write (not null)
      * @param socket the WebSocket destination (not null)
-     * @throws NullPointerException if message or socket is null
      */
-    public static synchronized void writeMessageToSocket(@NonNull String message, @NonNull ServerWebSocket socket)
+    public static void writeBinaryToSocket(@NonNull Buffer message, @NonNull ServerWebSocket socket)
+    {
+        WebSocketConnection connection = VertxSocketHttpWebSocketConfigurator.connections.get(socket.textHandlerID());
+        if (connection != null)
+        {
+            connection.write(message);
+        }
+        else
+        {
+            socket.writeBinaryMessage(message);
+        }
+    }
+
+    /**
+     * Broadcasts a binary message to all WebSocket connections in a named group.
+     *
+     * <p>The message is written as-is, so it should be encoded with the codec the group's members
+     * negotiated (see {@link #getCodec()}). Across a cluster the bytes are forwarded once to each
+     * node with members of the group.</p>
+     *
+     * @param groupName the group identifier (not null, e.g., "chat:lobby")
+     * @param message the binary payload (not null)
+     * @throws NullPointerException if groupName or message is null
+     *
+     * @see #broadcastMessage(String, String)
+     */
+    public void broadcastBinaryMessage(@NonNull String groupName, @NonNull Buffer message)
+    {
+        VertxSocketHttpWebSocketConfigurator.publishToGroup(groupName, message);
+    }
+
+    /**
+     * Sends a binary message to the current WebSocket connection.
+     *
+     * @param message the binary payload (not null)
+     * @throws NullPointerException if message is null
+     */
+    public void sendBinaryMessage(@NonNull Buffer message)
+    {
+        WebSocketConnection current = connection;
+        if (current != null)
+        {
+            current.write(message);
+        }
+        else
+        {
+            VertxSocketHttpWebSocketConfigurator.sendToConnection(callScopeProperties().getProperties()
+                                                                                     .get("RequestContextId")
+                                                                                     .toString(), message);
+        }
+    }
+
+    /**
+     * Encodes a payload with the connection's negotiated codec and sends it to the current WebSocket connection.
+     *
+     * <p>Codecs that report {@link WebSocketMessageCodec#isBinary()} are written as a binary message,
+     * others, such as the default JSON codec, as a text message.</p>
+     *
+     * @param payload the value to encode (not null)
+     * @throws NullPointerException if payload is null
+     *
+     * @see #getCodec()
+     */
+    public void sendEncodedMessage(@NonNull Object payload)
+    {
+        WebSocketMessageCodec codec = getCodec();
+        Buffer encoded = codec.encode(payload);
+        if (codec.isBinary())
+        {
+            sendBinaryMessage(encoded);
+        }
+        else
+        {
+            broadcastMessage(encoded.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Returns the codec negotiated by the current WebSocket connection.
+     *
+     * @return the connection's codec, or the JSON codec when none was negotiated
+     */
+    public WebSocketMessageCodec getCodec()
     {
-        socket.writeTextMessage(message);
+        WebSocketConnection current = connection;
+        if (current != null)
+        {
+            return current.getCodec();
+        }
+        Object id = callScopeProperties().getProperties()
+                                       .get("RequestContextId");
+        WebSocketConnection registered = id == null ? null : VertxSocketHttpWebSocketConfigurator.connections.get(id.toString());
+        return registered == null ? JsonWebSocketMessageCodec.INSTANCE : registered.getCodec();
     }
 
     /**
      * Broadcasts a message to the current WebSocket connection.
      *
-     * <p>Sends the message only to this connection's request context ID.</p>
+     * <p>Sends the message only to this connection's request context ID. The write goes straight to
+     * the connection on its own event loop; the EventBus is only used when the connection lives on
+     * another node of a cluster.</p>
      *
      * @param message the message payload (not null)
      * @throws NullPointerException if message is null
@@ -211,10 +812,17 @@ public class GuicedWebSocket extends AbstractVerticle implements IGuicedWebSocke
      */
     public void broadcastMessage(@NonNull String message)
     {
-        vertx.eventBus()
-             .send(callScopeProperties.getProperties()
-                                      .get("RequestContextId")
-                                      .toString(), message);
+        WebSocketConnection current = connection;
+        if (current != null)
+        {
+            current.write(message);
+        }
+        else
+        {
+            VertxSocketHttpWebSocketConfigurator.sendToConnection(callScopeProperties().getProperties()
+                                                                                     .get("RequestContextId")
+                                                                                     .toString(), message);
+        }
     }
 
     /**
@@ -231,51 +839,76 @@ public class GuicedWebSocket extends AbstractVerticle implements IGuicedWebSocke
      */
     public void broadcastMessageSync(@NonNull String groupName, @NonNull String message)
     {
-        writeMessageToSocket(message, ((ServerWebSocket) callScopeProperties.getProperties()
+        writeMessageToSocket(message, ((ServerWebSocket) callScopeProperties().getProperties()
                 .get("ServerWebSocket")));
     }
 
     /**
      * Receives and processes a text message from the WebSocket.
      *
-     * <p>Deserializes the message as JSON, dispatches to registered handlers,
-     * and returns an async Uni for non-blocking composition.</p>
+     * <p>Peeks the {@code action} with a streaming parser and only binds the message when a
+     * listener is registered for that action, then dispatches to it and returns an async Uni
+     * for non-blocking composition.</p>
      *
      * @param message the JSON message payload (not null)
      * @return a Uni that completes when message processing is done
      * @throws NullPointerException if message is null
      * 
      * @see #receiveMessage(WebSocketMessageReceiver)
+     * @see WebSocketMessageDecoder
      */
     public io.smallrye.mutiny.Uni<Void> receiveMessage(@NonNull String message)
     {
-        return io.smallrye.mutiny.Uni.createFrom().item(() -> {
-                    try {
-                        return IGuiceContext.get(ObjectMapper.class)
-                                .readValue(message, WebSocketMessageReceiver.class);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
+        WebSocketMetrics[] metrics = GuicedWebSocketHandlers.metrics();
+        long start = metrics.length == 0 ? 0 : System.nanoTime();
+        return io.smallrye.mutiny.Uni.createFrom().item(() -> WebSocketMessageDecoder.peekAction(message))
+                .onItem().transformToUni(action -> {
+                    if (action == null || !IGuicedWebSocket.getMessagesListeners()
+                            .containsKey(action))
+                    {
+                        log.warn("No web socket action registered for " + action);
+                        recordDispatch(metrics, action, start, true);
+                        return io.smallrye.mutiny.Uni.createFrom().voidItem();
                     }
-                })
-                .onItem().transformToUni(messageReceived -> {
-                    String requestContextId = callScopeProperties.getProperties()
+                    WebSocketMessageReceiver<?> messageReceived = WebSocketMessageDecoder.decode(action, message);
+                    String requestContextId = callScopeProperties().getProperties()
                             .get("RequestContextId")
                             .toString();
                     messageReceived.setBroadcastGroup(requestContextId);
-                    if (IGuicedWebSocket.getMessagesListeners()
-                            .containsKey(messageReceived.getAction()))
-                    {
-                        return IGuicedWebSocket.getMessagesListeners()
-                                .get(messageReceived.getAction())
-                                .receiveMessage(messageReceived);
-                    }
-                    else
-                    {
-                        log.warn("No web socket action registered for " + messageReceived.getAction());
-                        return io.smallrye.mutiny.Uni.createFrom().voidItem();
-                    }
+                    return dispatch(messageReceived, metrics, start);
+                })
+                .onFailure().invoke(e -> {
+                    log.error("ERROR Message Received - Message=" + message, e);
+                    recordDispatch(metrics, null, start, false);
+                })
+                .replaceWithVoid();
+    }
+
+    /**
+     * Receives and processes a binary message from the WebSocket.
+     *
+     * <p>The message is decoded with the connection's negotiated codec and dispatched to the
+     * listener registered for its action, exactly as a text message. A message that cannot be
+     * decoded is logged and recorded as a failed dispatch, and the returned Uni completes.</p>
+     *
+     * @param message the encoded message (not null)
+     * @param codec the codec to decode with (not null)
+     * @return a Uni that completes when message processing is done
+     *
+     * @see #receiveMessage(WebSocketMessageReceiver)
+     */
+    public io.smallrye.mutiny.Uni<Void> receiveMessage(@NonNull Buffer message, @NonNull WebSocketMessageCodec codec)
+    {
+        WebSocketMetrics[] metrics = GuicedWebSocketHandlers.metrics();
+        long start = metrics.length == 0 ? 0 : System.nanoTime();
+        return io.smallrye.mutiny.Uni.createFrom().item(() -> codec.decode(message))
+                .onFailure().recoverWithItem(e -> {
+                    //a frame that cannot be decoded is reported here, once, and not passed on
+                    log.error("ERROR Binary Message Received - Codec=" + codec.subProtocol() + ", Length=" + message.length(), e);
+                    recordDispatch(metrics, null, start, false);
+                    return null;
                 })
-                .onFailure().invoke(e -> log.error("ERROR Message Received - Message=" + message, e))
+                .onItem().ifNotNull().transformToUni(msg -> receiveMessage(msg, metrics, start))
                 .replaceWithVoid();
     }
 
@@ -292,31 +925,63 @@ public class GuicedWebSocket extends AbstractVerticle implements IGuicedWebSocke
      * @see #receiveMessage(String)
      */
     public io.smallrye.mutiny.Uni<Void> receiveMessage(@NonNull WebSocketMessageReceiver<?> messageReceived)
+    {
+        WebSocketMetrics[] metrics = GuicedWebSocketHandlers.metrics();
+        return receiveMessage(messageReceived, metrics, metrics.length == 0 ? 0 : System.nanoTime());
+    }
+
+    private io.smallrye.mutiny.Uni<Void> receiveMessage(WebSocketMessageReceiver<?> messageReceived, WebSocketMetrics[] metrics, long start)
     {
         return io.smallrye.mutiny.Uni.createFrom().item(() -> {
-                    String requestContextId = callScopeProperties.getProperties()
+                    String requestContextId = callScopeProperties().getProperties()
                             .get("RequestContextId")
                             .toString();
                     messageReceived.setBroadcastGroup(requestContextId);
                     return messageReceived;
                 })
-                .onItem().transformToUni(msg -> {
-                    if (IGuicedWebSocket.getMessagesListeners()
-                            .containsKey(msg.getAction()))
-                    {
-                        return IGuicedWebSocket.getMessagesListeners()
-                                .get(msg.getAction())
-                                .receiveMessage(msg);
-                    }
-                    else
-                    {
-                        log.warn("No web socket action registered for " + msg.getAction());
-                        return io.smallrye.mutiny.Uni.createFrom().voidItem();
-                    }
-                })
+                .onItem().transformToUni(msg -> dispatch(msg, metrics, start))
                 .onFailure().invoke(e -> log.error("ERROR Message Received - Message=" + messageReceived.toString(), e))
                 .replaceWithVoid();
     }
 
+    /**
+     * Routes a decoded message to the listener registered for its action, recording the dispatch time when metrics are registered.
+     *
+     * @param msg     the decoded message
+     * @param metrics the registered metrics listeners
+     * @param start   the decode start time, only meaningful when metrics are registered
+     * @return the listener's result, or an empty Uni when no listener handles the action
+     */
+    private static io.smallrye.mutiny.Uni<?> dispatch(WebSocketMessageReceiver<?> msg, WebSocketMetrics[] metrics, long start)
+    {
+        if (!IGuicedWebSocket.getMessagesListeners()
+                .containsKey(msg.getAction()))
+        {
+            log.warn("No web socket action registered for " + msg.getAction());
+            recordDispatch(metrics, msg.getAction(), start, true);
+            return io.smallrye.mutiny.Uni.createFrom().voidItem();
+        }
+        io.smallrye.mutiny.Uni<?> result = IGuicedWebSocket.getMessagesListeners()
+                .get(msg.getAction())
+                .receiveMessage(msg);
+        if (metrics.length == 0)
+        {
+            return result;
+        }
+        return result.onItemOrFailure().invoke((item, failure) -> recordDispatch(metrics, msg.getAction(), start, failure == null));
+    }
+
+    private static void recordDispatch(WebSocketMetrics[] metrics, String action, long start, boolean success)
+    {
+        if (metrics.length == 0)
+        {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        for (WebSocketMetrics metric : metrics)
+        {
+            metric.messageDispatched(action, elapsed, success);
+        }
+    }
 
 }
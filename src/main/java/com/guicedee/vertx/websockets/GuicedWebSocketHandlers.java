@@ -0,0 +1,188 @@
+package com.guicedee.vertx.websockets;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.client.services.websocket.GuicedWebSocketOnAddToGroup;
+import com.guicedee.client.services.websocket.GuicedWebSocketOnPublish;
+import com.guicedee.client.services.websocket.GuicedWebSocketOnRemoveFromGroup;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Memoized SPI handler chains for group join, leave and publish operations, the metrics listeners and the message codecs.
+ *
+ * <p>Each chain is resolved through {@link IGuiceContext#loaderToSet(ServiceLoader)} on first use
+ * and kept as an ordered array, so the group and broadcast paths iterate the handlers without
+ * a service scan or any allocation. The arrays are shared and must not be modified.</p>
+ *
+ * @see GuicedWebSocket
+ */
+public final class GuicedWebSocketHandlers
+{
+    private static volatile GuicedWebSocketOnAddToGroup<?>[] onAddToGroup;
+    private static volatile GuicedWebSocketOnRemoveFromGroup<?>[] onRemoveFromGroup;
+    private static volatile GuicedWebSocketOnPublish<?>[] onPublish;
+    private static volatile WebSocketMetrics[] metrics;
+    private static volatile Map<String, WebSocketMessageCodec> codecs;
+
+    private GuicedWebSocketHandlers()
+    {
+    }
+
+    /**
+     * Returns the ordered group join handlers.
+     *
+     * @return the handler chain, empty when none are registered
+     */
+    public static GuicedWebSocketOnAddToGroup<?>[] onAddToGroup()
+    {
+        GuicedWebSocketOnAddToGroup<?>[] handlers = onAddToGroup;
+        if (handlers == null)
+        {
+            synchronized (GuicedWebSocketHandlers.class)
+            {
+                handlers = onAddToGroup;
+                if (handlers == null)
+                {
+                    handlers = IGuiceContext.loaderToSet(ServiceLoader.load(GuicedWebSocketOnAddToGroup.class))
+                                            .toArray(new GuicedWebSocketOnAddToGroup<?>[0]);
+                    onAddToGroup = handlers;
+                }
+            }
+        }
+        return handlers;
+    }
+
+    /**
+     * Returns the ordered group leave handlers.
+     *
+     * @return the handler chain, empty when none are registered
+     */
+    public static GuicedWebSocketOnRemoveFromGroup<?>[] onRemoveFromGroup()
+    {
+        GuicedWebSocketOnRemoveFromGroup<?>[] handlers = onRemoveFromGroup;
+        if (handlers == null)
+        {
+            synchronized (GuicedWebSocketHandlers.class)
+            {
+                handlers = onRemoveFromGroup;
+                if (handlers == null)
+                {
+                    handlers = IGuiceContext.loaderToSet(ServiceLoader.load(GuicedWebSocketOnRemoveFromGroup.class))
+                                            .toArray(new GuicedWebSocketOnRemoveFromGroup<?>[0]);
+                    onRemoveFromGroup = handlers;
+                }
+            }
+        }
+        return handlers;
+    }
+
+    /**
+     * Returns the ordered publish handlers.
+     *
+     * @return the handler chain, empty when none are registered
+     */
+    public static GuicedWebSocketOnPublish<?>[] onPublish()
+    {
+        GuicedWebSocketOnPublish<?>[] handlers = onPublish;
+        if (handlers == null)
+        {
+            synchronized (GuicedWebSocketHandlers.class)
+            {
+                handlers = onPublish;
+                if (handlers == null)
+                {
+                    handlers = IGuiceContext.loaderToSet(ServiceLoader.load(GuicedWebSocketOnPublish.class))
+                                            .toArray(new GuicedWebSocketOnPublish<?>[0]);
+                    onPublish = handlers;
+                }
+            }
+        }
+        return handlers;
+    }
+
+    /**
+     * Returns the registered metrics listeners.
+     *
+     * @return the listeners, empty when none are registered
+     */
+    public static WebSocketMetrics[] metrics()
+    {
+        WebSocketMetrics[] listeners = metrics;
+        if (listeners == null)
+        {
+            synchronized (GuicedWebSocketHandlers.class)
+            {
+                listeners = metrics;
+                if (listeners == null)
+                {
+                    listeners = IGuiceContext.loaderToSet(ServiceLoader.load(WebSocketMetrics.class))
+                                             .toArray(new WebSocketMetrics[0]);
+                    metrics = listeners;
+                }
+            }
+        }
+        return listeners;
+    }
+
+    /**
+     * Returns the registered message codecs keyed by subprotocol, in registration order.
+     *
+     * <p>The built-in JSON codec is not included unless it is registered explicitly.</p>
+     *
+     * @return the codecs, empty when none are registered
+     */
+    public static Map<String, WebSocketMessageCodec> codecs()
+    {
+        Map<String, WebSocketMessageCodec> registered = codecs;
+        if (registered == null)
+        {
+            synchronized (GuicedWebSocketHandlers.class)
+            {
+                registered = codecs;
+                if (registered == null)
+                {
+                    Map<String, WebSocketMessageCodec> loaded = new LinkedHashMap<>();
+                    for (WebSocketMessageCodec codec : IGuiceContext.loaderToSet(ServiceLoader.load(WebSocketMessageCodec.class)))
+                    {
+                        loaded.putIfAbsent(codec.subProtocol(), codec);
+                    }
+                    registered = Collections.unmodifiableMap(loaded);
+                    codecs = registered;
+                }
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * Returns the codec for a negotiated subprotocol.
+     *
+     * @param subProtocol the subprotocol agreed during the handshake, may be null
+     * @return the registered codec, or {@link JsonWebSocketMessageCodec#INSTANCE} when none matches
+     */
+    public static WebSocketMessageCodec codecFor(@Nullable String subProtocol)
+    {
+        if (subProtocol == null)
+        {
+            return JsonWebSocketMessageCodec.INSTANCE;
+        }
+        return codecs().getOrDefault(subProtocol, JsonWebSocketMessageCodec.INSTANCE);
+    }
+
+    /**
+     * Clears the memoized chains so they are resolved again on next use.
+     */
+    public static synchronized void reset()
+    {
+        onAddToGroup = null;
+        onRemoveFromGroup = null;
+        onPublish = null;
+        metrics = null;
+        codecs = null;
+    }
+}
@@ -0,0 +1,88 @@
+package com.guicedee.vertx.websockets;
+
+import com.guicedee.client.services.websocket.WebSocketMessageReceiver;
+import io.vertx.core.buffer.Buffer;
+import org.jspecify.annotations.NonNull;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link WebSocketMessageCodec} backed by a Jackson {@link ObjectMapper}.
+ *
+ * <p>Binary formats are added by registering a subclass with the matching Jackson dataformat
+ * mapper, for example a {@code CBORMapper} under {@code cbor} or a MessagePack mapper under
+ * {@code msgpack}. The mapper is resolved on first use.</p>
+ *
+ * @see JsonWebSocketMessageCodec
+ */
+public class JacksonWebSocketMessageCodec implements WebSocketMessageCodec
+{
+    private final String subProtocol;
+    private final boolean binary;
+    private final Supplier<? extends ObjectMapper> mapperSupplier;
+
+    private volatile ObjectMapper mapper;
+    private volatile ObjectReader reader;
+
+    /**
+     * Creates a codec.
+     *
+     * @param subProtocol    the subprotocol name the codec is negotiated under
+     * @param binary         true to write encoded payloads as binary frames
+     * @param mapperSupplier supplies the object mapper on first use
+     */
+    public JacksonWebSocketMessageCodec(@NonNull String subProtocol, boolean binary, @NonNull Supplier<? extends ObjectMapper> mapperSupplier)
+    {
+        this.subProtocol = subProtocol;
+        this.binary = binary;
+        this.mapperSupplier = mapperSupplier;
+    }
+
+    @Override
+    public String subProtocol()
+    {
+        return subProtocol;
+    }
+
+    @Override
+    public boolean isBinary()
+    {
+        return binary;
+    }
+
+    @Override
+    public WebSocketMessageReceiver<?> decode(@NonNull Buffer message)
+    {
+        ObjectReader current = reader;
+        if (current == null)
+        {
+            current = getMapper().readerFor(WebSocketMessageReceiver.class);
+            reader = current;
+        }
+        return current.readValue(message.getBytes());
+    }
+
+    @Override
+    public Buffer encode(@NonNull Object value)
+    {
+        return Buffer.buffer(getMapper().writeValueAsBytes(value));
+    }
+
+    /**
+     * Returns the object mapper, resolving it on first use
+     *
+     * @return the object mapper
+     */
+    protected ObjectMapper getMapper()
+    {
+        ObjectMapper current = mapper;
+        if (current == null)
+        {
+            current = mapperSupplier.get();
+            mapper = current;
+        }
+        return current;
+    }
+}
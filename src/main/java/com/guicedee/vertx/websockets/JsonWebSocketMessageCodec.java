@@ -0,0 +1,36 @@
+package com.guicedee.vertx.websockets;
+
+import com.guicedee.client.services.websocket.WebSocketMessageReceiver;
+import io.vertx.core.buffer.Buffer;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * The default JSON codec, negotiated under {@code json}.
+ *
+ * <p>Uses the shared object mapper and decodes through {@link WebSocketMessageDecoder}, so action
+ * types registered with {@link WebSocketMessageDecoder#registerActionType(String, Class)} apply to
+ * binary JSON messages as well.</p>
+ */
+public final class JsonWebSocketMessageCodec extends JacksonWebSocketMessageCodec
+{
+    /**
+     * The subprotocol name of the JSON codec
+     */
+    public static final String SUB_PROTOCOL = "json";
+    /**
+     * The shared instance
+     */
+    public static final JsonWebSocketMessageCodec INSTANCE = new JsonWebSocketMessageCodec();
+
+    private JsonWebSocketMessageCodec()
+    {
+        super(SUB_PROTOCOL, false, WebSocketMessageDecoder::getObjectMapper);
+    }
+
+    @Override
+    public WebSocketMessageReceiver<?> decode(@NonNull Buffer message)
+    {
+        String text = message.toString();
+        return WebSocketMessageDecoder.decode(WebSocketMessageDecoder.peekAction(text), text);
+    }
+}
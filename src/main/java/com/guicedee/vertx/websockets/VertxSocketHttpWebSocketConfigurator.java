@@ -7,24 +7,39 @@ import com.guicedee.client.IGuiceContext;
 import com.guicedee.client.scopes.CallScopeProperties;
 import com.guicedee.client.scopes.CallScoper;
 import com.guicedee.client.services.lifecycle.IGuicePostStartup;
+import com.guicedee.client.services.lifecycle.IGuicePreDestroy;
 import com.guicedee.client.services.websocket.IGuicedWebSocket;
 import com.guicedee.vertx.web.spi.VertxHttpServerConfigurator;
 import com.guicedee.vertx.web.spi.VertxHttpServerOptionsConfigurator;
 import com.guicedee.vertx.web.spi.VertxRouterConfigurator;
 import io.smallrye.mutiny.Uni;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import lombok.extern.log4j.Log4j2;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import static com.guicedee.client.scopes.CallScopeSource.WebSocket;
 import static com.guicedee.client.services.websocket.IGuicedWebSocket.EveryoneGroup;
@@ -33,7 +48,8 @@ import static com.guicedee.client.services.websocket.IGuicedWebSocket.EveryoneGr
  * Configures Vert.x HTTP server WebSocket handling for GuicedEE.
  *
  * <p>Registers the WebSocket handler, initializes group event-bus consumers,
- * and applies {@link WebSocketServerOptions} to the server options.</p>
+ * and applies {@link WebSocketServerOptions} to the server options. Registered
+ * {@link WebSocketMessageCodec}s are offered as WebSocket subprotocols.</p>
  *
  * @see WebSocketServerOptions
  * @see GuicedWebSocket
@@ -41,7 +57,7 @@ import static com.guicedee.client.services.websocket.IGuicedWebSocket.EveryoneGr
 @Log4j2
 @Singleton
 public class VertxSocketHttpWebSocketConfigurator implements IGuicePostStartup<VertxSocketHttpWebSocketConfigurator>,
-        VertxHttpServerConfigurator, VertxRouterConfigurator<VertxSocketHttpWebSocketConfigurator>,
+        IGuicePreDestroy<VertxSocketHttpWebSocketConfigurator>, VertxHttpServerConfigurator, VertxRouterConfigurator<VertxSocketHttpWebSocketConfigurator>,
         VertxHttpServerOptionsConfigurator {
     @Inject
     Vertx vertx;
@@ -68,11 +84,238 @@ public class VertxSocketHttpWebSocketConfigurator implements IGuicePostStartup<V
     /**
      * Active WebSocket connections keyed by group name.
      */
-    public static final Map<String, List<ServerWebSocket>> groupSockets = new ConcurrentHashMap<>();
+    public static final Map<String, WebSocketGroup> groupSockets = new ConcurrentHashMap<>();
     /**
      * Call-scope properties keyed by connection/group identifier.
+     *
+     * @deprecated connections keep their properties on {@link WebSocketConnection#getScopeProperties()};
+     * this map is always empty, nothing reads or writes it, and it will be removed
      */
+    @Deprecated
     public static final Map<String, CallScopeProperties> groupCallScopeProperties = new ConcurrentHashMap<>();
+    /**
+     * Outbound writers keyed by connection identifier.
+     */
+    public static final Map<String, WebSocketConnection> connections = new ConcurrentHashMap<>();
+    /**
+     * Outbound options keyed by group name, applied whenever the group exists.
+     */
+    public static final Map<String, WebSocketGroupOptions> groupOptions = new ConcurrentHashMap<>();
+    /**
+     * Replay buffers keyed by group name, for groups whose options enable replay.
+     */
+    public static final Map<String, WebSocketReplayBuffer> replayBuffers = new ConcurrentHashMap<>();
+    /**
+     * Resumable sessions of closed connections keyed by session token.
+     */
+    public static final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    private static volatile WebSocketServerOptions options;
+    private static final AtomicBoolean idleReaperStarted = new AtomicBoolean();
+    private static volatile WebSocketClusterRouter clusterRouter;
+    private static volatile Executor inboundExecutor;
+    private static final WebSocketTopicMatcher topicMatcher = new WebSocketTopicMatcher();
+    /**
+     * The prefix of {@link ServerWebSocket#textHandlerID()}, which connection ids are
+     */
+    private static final String CONNECTION_ID_PREFIX = "__vertx.ws.";
+
+    /**
+     * Returns the active WebSocket server options, resolving them from the injector on first use.
+     *
+     * @return the server options singleton
+     */
+    public static WebSocketServerOptions getOptions() {
+        WebSocketServerOptions current = options;
+        if (current == null) {
+            current = IGuiceContext.get(WebSocketServerOptions.class);
+            options = current;
+        }
+        return current;
+    }
+
+    /**
+     * Replaces the active WebSocket server options, e.g. for an embedded server started without the injector.
+     *
+     * @param webSocketServerOptions the options to apply
+     * @throws IllegalArgumentException if option validation fails
+     */
+    public static void setOptions(WebSocketServerOptions webSocketServerOptions) {
+        webSocketServerOptions.validate();
+        options = webSocketServerOptions;
+    }
+
+    /**
+     * Registers the outbound options of a group, replacing any options it had.
+     *
+     * <p>Options with a {@link WebSocketGroupOptions#getReplayBufferSize() replay buffer} start a new,
+     * empty buffer for the group; options without one discard it.</p>
+     *
+     * <p>The options are registered inside {@code groupSockets.compute}, serialized with joins of the
+     * group, so a group being created concurrently cannot miss them.</p>
+     *
+     * @param group   the group name
+     * @param options the group options, null to remove them
+     * @throws IllegalArgumentException if option validation fails, or the options make a name without wildcard segments a pattern
+     */
+    public static void configureGroup(String group, WebSocketGroupOptions options) {
+        if (options != null) {
+            options.validate();
+            if (options.isPattern() && !WebSocketTopicMatcher.isPattern(group)) {
+                throw new IllegalArgumentException("Group " + group + " has no wildcard segment and cannot be a pattern");
+            }
+        }
+        groupSockets.compute(group, (name, members) -> {
+            if (options == null) {
+                groupOptions.remove(name);
+            } else {
+                groupOptions.put(name, options);
+            }
+            if (options != null && options.isReplaying()) {
+                replayBuffers.put(name, new WebSocketReplayBuffer(name, options));
+            } else {
+                replayBuffers.remove(name);
+            }
+            if (members != null && isPatternGroup(name) && !members.isEmpty()) {
+                topicMatcher.add(name);
+            } else {
+                topicMatcher.remove(name);
+            }
+            return members;
+        });
+    }
+
+    /**
+     * Checks if a group is a wildcard subscription, i.e. its options are {@link WebSocketGroupOptions#isPattern() a pattern}.
+     *
+     * @param group the group name
+     * @return true when the group was configured as a pattern
+     */
+    public static boolean isPatternGroup(String group) {
+        WebSocketGroupOptions options = groupOptions.get(group);
+        return options != null && options.isPattern();
+    }
+
+    /**
+     * Returns the number of live connections on this instance
+     *
+     * @return the connection count
+     */
+    public static int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the number of members in a group on this instance
+     *
+     * @param group the group name
+     * @return the member count, zero if the group does not exist
+     */
+    public static int getGroupSize(String group) {
+        WebSocketGroup members = groupSockets.get(group);
+        return members == null ? 0 : members.size();
+    }
+
+    /**
+     * Returns the number of outbound messages held across all connections while their sockets are not writable.
+     *
+     * <p>Walks every connection, so call it from a gauge supplier rather than a hot path.</p>
+     *
+     * @return the total queued message count
+     */
+    public static long getQueuedMessageCount() {
+        long queued = 0;
+        for (WebSocketConnection connection : connections.values()) {
+            queued += connection.getQueuedMessages();
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the number of groups in the registry on this instance, including per-connection groups
+     *
+     * @return the group count
+     */
+    public static int getGroupCount() {
+        return groupSockets.size();
+    }
+
+    /**
+     * Returns the number of closed connections whose sessions can still be resumed on this instance
+     *
+     * @return the retained session count
+     */
+    public static int getRetainedSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns the number of EventBus consumers registered for groups on this instance
+     *
+     * @return the consumer count
+     */
+    public static int getGroupConsumerCount() {
+        int count = 0;
+        for (List<MessageConsumer<String>> consumers : groupConsumers.values()) {
+            count += consumers.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of connections addressable through their own EventBus consumer on this instance
+     *
+     * @return the per-connection consumer count
+     */
+    public static int getConnectionConsumerCount() {
+        int count = 0;
+        for (WebSocketConnection connection : connections.values()) {
+            if (connection.getConsumer() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists registry entries that are no longer backed by a live connection or group member.
+     *
+     * <p>Intended for soak and load tests: once every client has disconnected and the close
+     * handlers have run, the result must be empty. While connections are being accepted or
+     * closed, transient entries may be reported.</p>
+     *
+     * @return a description of each orphaned entry, empty when the registries are consistent
+     */
+    public static List<String> getOrphanedRegistrations() {
+        List<String> orphans = new ArrayList<>();
+        connections.forEach((id, connection) -> {
+            if (connection.getSocket().isClosed()) {
+                orphans.add("closedConnection:" + id);
+            }
+        });
+        groupConsumers.forEach((group, consumers) -> {
+            WebSocketGroup members = groupSockets.get(group);
+            if (!consumers.isEmpty() && (members == null || members.isEmpty()) && !EveryoneGroup.equalsIgnoreCase(group)) {
+                orphans.add("groupConsumers:" + group);
+            }
+        });
+        groupSockets.forEach((group, members) -> {
+            members.forEach(connection -> {
+                if (!connections.containsKey(connection.getId())) {
+                    orphans.add("groupSockets:" + group + "/" + connection.getId());
+                }
+            });
+            if (members.isEmpty() && !EveryoneGroup.equalsIgnoreCase(group)) {
+                orphans.add("emptyGroup:" + group);
+            }
+        });
+        sessions.forEach((token, session) -> {
+            if (session.isExpired()) {
+                orphans.add("expiredSession:" + token);
+            }
+        });
+        return orphans;
+    }
 
     /**
      * No-op post-load hook for IGuicePostStartup.
@@ -94,6 +337,87 @@ public class VertxSocketHttpWebSocketConfigurator implements IGuicePostStartup<V
         configureGroupListener(IGuiceContext.get(Vertx.class), group, webSocket);
     }
 
+    /**
+     * Adds a WebSocket connection to several groups in one call.
+     *
+     * <p>Admission is checked for every group before any is joined, so a full group rejects the
+     * whole call; if a group fills up while the call is joining, the groups it joined are left
+     * again. The connection is resolved once for all the groups.</p>
+     *
+     * @param groups    the group names
+     * @param webSocket the WebSocket connection, ignored when it is unknown or closed
+     * @throws WebSocketException if any of the groups is full
+     */
+    public static void addToGroups(Collection<String> groups, ServerWebSocket webSocket) {
+        WebSocketConnection connection = connectionFor(webSocket);
+        if (connection == null) {
+            log.debug("Ignoring group join for unknown or closed web socket {}", webSocket.textHandlerID());
+            return;
+        }
+        for (String group : groups) {
+            checkGroupAdmission(group, groupSockets.get(group), connection.getId());
+        }
+        Vertx vertx = IGuiceContext.get(Vertx.class);
+        List<String> joined = new ArrayList<>(groups.size());
+        try {
+            for (String group : groups) {
+                WebSocketGroup current = groupSockets.get(group);
+                boolean member = current != null && current.contains(connection.getId());
+                joinGroup(vertx, group, connection);
+                if (!member) {
+                    joined.add(group);
+                }
+            }
+        } catch (WebSocketException e) {
+            //a group filled up after the check: leave the ones joined by this call
+            removeFromGroups(joined, webSocket);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes a WebSocket connection from several groups in one call, cleaning up groups left empty.
+     *
+     * @param groups    the group names
+     * @param webSocket the WebSocket connection
+     */
+    public static void removeFromGroups(Collection<String> groups, ServerWebSocket webSocket) {
+        WebSocketConnection connection = connections.get(webSocket.textHandlerID());
+        for (String group : groups) {
+            WebSocketGroup members = groupSockets.get(group);
+            if (members == null) {
+                continue;
+            }
+            if (connection != null) {
+                connection.left(members);
+                removeSocketFromGroup(members, connection);
+            } else if (members.remove(webSocket.textHandlerID())) {
+                reclaimIfEmpty(members);
+            }
+        }
+    }
+
+    /**
+     * Removes a WebSocket connection from every group it joined except {@code Everyone}.
+     *
+     * <p>Walks only the connection's own membership record; the connection stays registered.</p>
+     *
+     * @param webSocket the WebSocket connection
+     */
+    public static void removeFromAllGroups(ServerWebSocket webSocket) {
+        WebSocketConnection connection = connections.get(webSocket.textHandlerID());
+        if (connection == null) {
+            return;
+        }
+        for (WebSocketGroup members : connection.clearGroups()) {
+            if (EveryoneGroup.equalsIgnoreCase(members.getName())) {
+                connection.joined(members);
+            } else {
+                removeSocketFromGroup(members, connection);
+            }
+        }
+    }
+
     /**
      * Removes a WebSocket connection from a group and cleans up empty groups.
      *
@@ -101,24 +425,144 @@ public class VertxSocketHttpWebSocketConfigurator implements IGuicePostStartup<V
      * @param webSocket the WebSocket connection
      */
     public static void removeFromGroup(String group, ServerWebSocket webSocket) {
-        if (groupSockets.containsKey(group)) {
-            groupSockets
-                    .get(group)
-                    .remove(webSocket);
-            if (groupSockets
-                    .get(group)
-                    .isEmpty() && !EveryoneGroup.equalsIgnoreCase(group)) {
-                groupSockets.remove(group);
+        WebSocketGroup members = groupSockets.get(group);
+        if (members == null) {
+            return;
+        }
+        WebSocketConnection connection = connections.get(webSocket.textHandlerID());
+        if (connection != null) {
+            connection.left(members);
+            removeSocketFromGroup(members, connection);
+        } else if (members.remove(webSocket.textHandlerID())) {
+            reclaimIfEmpty(members);
+        }
+    }
+
+    /**
+     * Removes a connection from every group it joined and releases its registrations.
+     *
+     * <p>Only the groups recorded on the {@link WebSocketConnection} are touched, so the cost is
+     * proportional to the connection's own memberships. Groups left empty are reclaimed and their
+     * EventBus consumers unregistered.</p>
+     *
+     * @param id        the connection identifier
+     * @param webSocket the WebSocket connection
+     */
+    public static void removeConnection(String id, ServerWebSocket webSocket) {
+        WebSocketConnection connection = connections.remove(id);
+        if (connection == null) {
+            return;
+        }
+        for (WebSocketMetrics metric : GuicedWebSocketHandlers.metrics()) {
+            metric.connectionClosed(id);
+        }
+        if (connection.getSessionToken() != null) {
+            retainSession(connection, connection.getSessionToken());
+        }
+        for (WebSocketGroup members : connection.clearGroups()) {
+            removeSocketFromGroup(members, connection);
+        }
+        MessageConsumer<Object> consumer = connection.getConsumer();
+        if (consumer != null) {
+            connection.setConsumer(null);
+            consumer.unregister();
+        }
+    }
+
+    /**
+     * Keeps the application group memberships of a closing connection for resuming.
+     */
+    private static void retainSession(WebSocketConnection connection, String token) {
+        List<String> groups = new ArrayList<>();
+        for (String group : connection.getGroupNames()) {
+            if (!EveryoneGroup.equalsIgnoreCase(group) && !group.equals(connection.getId())) {
+                groups.add(group);
             }
+        }
+        long retentionMillis = TimeUnit.SECONDS.toMillis(getOptions().getSessionRetentionSeconds());
+        WebSocketSession session = new WebSocketSession(token, List.copyOf(groups),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retentionMillis));
+        sessions.put(token, session);
+        if (connection.getContext() != null) {
+            connection.getContext()
+                      .owner()
+                      .setTimer(retentionMillis, timerId -> sessions.remove(token, session));
+        }
+    }
+
+    /**
+     * Discards a retained session so that its token can no longer be resumed, e.g. on logout.
+     *
+     * @param token the session token
+     * @return true if a session was retained for the token
+     */
+    public static boolean discardSession(String token) {
+        return sessions.remove(token) != null;
+    }
+
+    private static void removeSocketFromGroup(WebSocketGroup members, WebSocketConnection connection) {
+        if (members.remove(connection)) {
+            reclaimIfEmpty(members);
+        }
+    }
 
+    /**
+     * Removes a group that has no members left, unregistering its EventBus consumer.
+     *
+     * <p>The emptiness check and the teardown run inside {@code groupSockets.computeIfPresent}, so a
+     * join racing with the last leave either keeps the group alive or creates a fresh one after it
+     * is gone.</p>
+     */
+    private static void reclaimIfEmpty(WebSocketGroup members) {
+        String group = members.getName();
+        if (EveryoneGroup.equalsIgnoreCase(group) || !members.isEmpty()) {
+            return;
+        }
+        groupSockets.computeIfPresent(group, (name, existing) -> {
+            if (existing != members || !existing.isEmpty()) {
+                return existing;
+            }
+            topicMatcher.remove(name);
+            unregisterGroupConsumers(name);
+            WebSocketClusterRouter router = clusterRouter;
+            if (router != null) {
+                router.localGroupLeft(name);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the registered outbound writer for a socket.
+     *
+     * <p>Connections are only ever registered when the socket is accepted; a socket that was never
+     * accepted by this node, or that has since closed, has no writer and is never given one.</p>
+     *
+     * @param webSocket the WebSocket connection
+     * @return the connection writer, or null when the socket is unknown or closed
+     */
+    public static WebSocketConnection connectionFor(ServerWebSocket webSocket) {
+        WebSocketConnection connection = connections.get(webSocket.textHandlerID());
+        if (connection == null || webSocket.isClosed()) {
+            return null;
+        }
+        return connection;
+    }
+
+    private static void unregisterGroupConsumers(String group) {
+        List<MessageConsumer<String>> consumers = groupConsumers.remove(group);
+        if (consumers != null) {
+            for (MessageConsumer<String> consumer : consumers) {
+                consumer.unregister();
+            }
         }
     }
 
     /**
      * Configures the HTTP server to accept WebSocket connections.
      *
-     * <p>Establishes call-scoped context, initializes per-connection groups,
-     * and routes inbound messages to {@link GuicedWebSocket}.</p>
+     * <p>Establishes call-scoped context, registers the {@link WebSocketConnection},
+     * joins the {@code Everyone} group and routes inbound messages to {@link GuicedWebSocket}.</p>
      *
      * @param builder the HttpServer builder
      * @return the configured builder
@@ -142,54 +586,68 @@ public class VertxSocketHttpWebSocketConfigurator implements IGuicePostStartup<V
                 properties
                         .getProperties()
                         .put("RequestContextId", id);
+                properties
+                        .getProperties()
+                        .put("ServerWebSocket", ctx);
 
+                WebSocketConnection connection = new WebSocketConnection(id, ctx, Vertx.currentContext());
+                //call-scope properties and group memberships live on the connection itself
+                connection.setScopeProperties(properties);
+                GuicedWebSocket guicedWebSocket = (GuicedWebSocket) IGuiceContext.get(IGuicedWebSocket.class);
+                guicedWebSocket.setConnection(connection);
+                connection.setGuicedWebSocket(guicedWebSocket);
+                connection.setCodec(GuicedWebSocketHandlers.codecFor(ctx.subProtocol()));
+                connections.put(id, connection);
+                startIdleReaper(vertx);
+                startClusterRouter(vertx);
+                for (WebSocketMetrics metric : GuicedWebSocketHandlers.metrics()) {
+                    metric.connectionOpened(id);
+                }
                 configureGroupListener(vertx, EveryoneGroup, ctx);
+                if (getOptions().isResumeEnabled()) {
+                    startSession(connection, ctx);
+                }
 
-                //create my group id on connect
-                groupConsumers.put(id, new ArrayList<>());
-                groupCallScopeProperties.put(id, properties);
-
-                configureGroupListener(vertx, id, ctx);
+                //messages addressed to the connection id are written straight to the socket;
+                //an EventBus consumer is only needed when other nodes or verticles address it
+                if (getOptions().isClustered() || getOptions().isConnectionConsumers()) {
+                    connection.setConsumer(vertx
+                            .eventBus()
+                            .<Object>consumer(id, message -> {
+                                if (message.body() instanceof Buffer buffer) {
+                                    connection.write(buffer);
+                                } else {
+                                    connection.write(String.valueOf(message.body()));
+                                }
+                            }));
+                }
 
                 //what happens on a message received
                 ctx
                         .textMessageHandler((msg) -> {
-                            processMessageInContext(ctx, msg, properties)
-                                    .subscribe()
-                                    .with(
-                                            v -> {
-                                            },
-                                            e -> log.error("WebSocket message processing failed", e)
-                                    )
-                            ;
+                            connection.touch();
+                            WebSocketMetrics[] metrics = GuicedWebSocketHandlers.metrics();
+                            if (metrics.length != 0) {
+                                int bytes = WebSocketConnection.encodedLength(msg);
+                                for (WebSocketMetrics metric : metrics) {
+                                    metric.frameIn(bytes);
+                                }
+                            }
+                            handleInbound(connection, ws -> ws.receiveMessage(msg));
+                        })
+                        .binaryMessageHandler((msg) -> {
+                            connection.touch();
+                            for (WebSocketMetrics metric : GuicedWebSocketHandlers.metrics()) {
+                                metric.frameIn(msg.length());
+                            }
+                            handleInbound(connection, ws -> ws.receiveMessage(msg, connection.getCodec()));
                         })
                         .exceptionHandler((e) -> {
                             log.error("Exception on web handler", e);
-                            groupSockets.forEach((key, value) -> {
-                                value.removeIf(a -> a
-                                        .textHandlerID()
-                                        .equals(id));
-                            });
-                            groupConsumers.forEach((key, value) -> {
-                                value.removeIf(a -> a
-                                        .address()
-                                        .equals(id));
-                            });
-                            groupCallScopeProperties.remove(id);
-                        })
-                        .closeHandler((__) -> {
-                            groupSockets.forEach((key, value) -> {
-                                value.removeIf(a -> a
-                                        .textHandlerID()
-                                        .equals(id));
-                            });
-                            groupConsumers.forEach((key, value) -> {
-                                value.removeIf(a -> a
-                                        .address()
-                                        .equals(id));
-                            });
-                            groupCallScopeProperties.remove(id);
+                            removeConnection(id, ctx);
                         })
+                        .pongHandler((__) -> connection.touch())
+                        .closeHandler((__) -> removeConnection(id, ctx))
                 ;
 
                 log.debug("Client connected: " + ctx.remoteAddress() + " / " + id);
@@ -201,58 +659,631 @@ public class VertxSocketHttpWebSocketConfigurator implements IGuicePostStartup<V
         return builder;
     }
 
+    /**
+     * Issues a session token to a new connection, or resumes the session named on its upgrade URI.
+     *
+     * <p>A resumed connection rejoins the groups of the closed one, bypassing the group SPIs, and is
+     * sent a {@code resumed} notice followed by the buffered messages after {@code lastSeq}, in
+     * sequence order. The notice reports {@code complete:false} when some of the missed messages
+     * were already evicted, in which case the client should reload its state.</p>
+     *
+     * <p>The groups are rejoined before the replay buffers are read, so a message published while the
+     * session resumes is never missed, but it can be both replayed and written live. Clients must drop
+     * envelopes whose sequence number they have already seen.</p>
+     */
+    private void startSession(WebSocketConnection connection, ServerWebSocket webSocket) {
+        Map<String, String> query = parseQuery(webSocket.query());
+        String token = query.get("resumeToken");
+        WebSocketSession session = token == null ? null : sessions.remove(token);
+        if (session == null || session.isExpired()) {
+            token = UUID.randomUUID()
+                        .toString();
+            connection.setSessionToken(token);
+            connection.write(new JsonObject().put("type", "session")
+                                             .put("token", token)
+                                             .put("seq", WebSocketReplayBuffer.getLastSequence())
+                                             .encode());
+            return;
+        }
+        connection.setSessionToken(token);
+        WebSocketTopicMatcher patterns = new WebSocketTopicMatcher();
+        List<WebSocketReplayBuffer> buffers = new ArrayList<>();
+        for (String group : session.groups()) {
+            try {
+                configureGroupListener(vertx, group, webSocket);
+            } catch (WebSocketException e) {
+                log.warn("Could not restore group " + group + " for resumed web socket " + connection.getId(), e);
+                continue;
+            }
+            if (isPatternGroup(group)) {
+                patterns.add(group);
+            } else if (replayBuffers.containsKey(group)) {
+                buffers.add(replayBuffers.get(group));
+            }
+        }
+        if (!patterns.isEmpty()) {
+            replayBuffers.forEach((group, buffer) -> {
+                if (!buffers.contains(buffer) && !patterns.match(group).isEmpty()) {
+                    buffers.add(buffer);
+                }
+            });
+        }
+        long lastSeq = parseSequence(query.get("lastSeq"));
+        boolean complete = lastSeq >= 0 || buffers.isEmpty();
+        //a message published to several replay groups is buffered once per group under one sequence
+        TreeMap<Long, String> missed = new TreeMap<>();
+        if (lastSeq >= 0) {
+            for (WebSocketReplayBuffer buffer : buffers) {
+                complete &= buffer.covers(lastSeq);
+                for (WebSocketReplayBuffer.Entry entry : buffer.since(lastSeq)) {
+                    missed.putIfAbsent(entry.sequence(), entry.envelope());
+                }
+            }
+        }
+        connection.write(new JsonObject().put("type", "resumed")
+                                         .put("token", token)
+                                         .put("replayed", missed.size())
+                                         .put("complete", complete)
+                                         .encode());
+        missed.values()
+              .forEach(connection::write);
+        log.debug("Resumed web socket session {} with {} groups, replayed {}", token, session.groups()
+                                                                                      .size(), missed.size());
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static long parseSequence(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the cluster router when {@link WebSocketServerOptions#isClustered()} is enabled.
+     *
+     * @return the router, or null when running standalone or before the first connection
+     */
+    public static WebSocketClusterRouter getClusterRouter() {
+        return clusterRouter;
+    }
+
+    private static synchronized void startClusterRouter(Vertx vertx) {
+        if (clusterRouter != null || !getOptions().isClustered()) {
+            return;
+        }
+        clusterRouter = new WebSocketClusterRouter(vertx, VertxSocketHttpWebSocketConfigurator::deliverToLocalGroup,
+                VertxSocketHttpWebSocketConfigurator::deliverToLocalGroups,
+                VertxSocketHttpWebSocketConfigurator::localApplicationGroups,
+                TimeUnit.SECONDS.toMillis(getOptions().getClusterHeartbeatSeconds())).start();
+        log.info("WebSocket cluster routing started on node " + clusterRouter.getNodeId());
+    }
+
+    /**
+     * Withdraws this node from the cluster on shutdown, so the other nodes stop routing to it at once
+     * instead of waiting for its heartbeats to expire.
+     */
+    @Override
+    public void onDestroy() {
+        stopClusterRouter();
+    }
+
+    private static synchronized void stopClusterRouter() {
+        WebSocketClusterRouter router = clusterRouter;
+        if (router == null) {
+            return;
+        }
+        clusterRouter = null;
+        try {
+            router.stop();
+        } catch (RuntimeException e) {
+            log.warn("Could not withdraw node " + router.getNodeId() + " from the web socket cluster", e);
+        }
+    }
+
+    /**
+     * Publishes a message to a group, across the cluster when clustering is enabled.
+     *
+     * <p>Local members are always written directly; remote nodes receive a single message each,
+     * and only when they have members of the group.</p>
+     *
+     * @param group   the group name
+     * @param message the message
+     */
+    public static void publishToGroup(String group, String message) {
+        WebSocketClusterRouter router = clusterRouter;
+        if (router != null) {
+            router.broadcast(group, message);
+        } else {
+            deliverToLocalGroup(group, message);
+        }
+    }
+
+    /**
+     * Writes a message to a single connection.
+     *
+     * <p>A connection registered on this node is written to directly on its own event loop, with
+     * no EventBus hop. Only when clustering is enabled is a connection that is not local sent over
+     * the EventBus, to the consumer its own node registered under the id; otherwise the message is dropped.</p>
+     *
+     * @param id      the connection identifier
+     * @param message the message
+     * @return true if the connection is registered on this node
+     */
+    public static boolean sendToConnection(String id, String message) {
+        WebSocketConnection connection = connections.get(id);
+        if (connection != null) {
+            connection.write(message);
+            return true;
+        }
+        sendToRemoteConnection(id, message);
+        return false;
+    }
+
+    /**
+     * Writes a binary message to a single connection.
+     *
+     * @param id      the connection identifier
+     * @param message the binary message
+     * @return true if the connection is registered on this node
+     * @see #sendToConnection(String, String)
+     */
+    public static boolean sendToConnection(String id, Buffer message) {
+        WebSocketConnection connection = connections.get(id);
+        if (connection != null) {
+            connection.write(message);
+            return true;
+        }
+        sendToRemoteConnection(id, message);
+        return false;
+    }
+
+    private static void sendToRemoteConnection(String id, Object message) {
+        if (clusterRouter != null) {
+            IGuiceContext.get(Vertx.class)
+                    .eventBus()
+                    .send(id, message);
+        } else {
+            log.debug("No web socket connection {} on this node, dropping message", id);
+        }
+    }
+
+    /**
+     * Publishes a binary message to a group, across the cluster when clustering is enabled.
+     *
+     * @param group   the group name
+     * @param message the binary message
+     * @see #publishToGroup(String, String)
+     */
+    public static void publishToGroup(String group, Buffer message) {
+        WebSocketClusterRouter router = clusterRouter;
+        if (router != null) {
+            router.broadcast(group, message);
+        } else {
+            deliverToLocalGroup(group, message);
+        }
+    }
+
+    /**
+     * Publishes a message to several groups, writing it once to each socket that is a member of any of them.
+     *
+     * <p>With clustering enabled each remote node with members of at least one of the groups
+     * receives a single message and de-duplicates its own members the same way.</p>
+     *
+     * @param groups  the group names
+     * @param message the message, a {@link String} for text or a {@link Buffer} for binary
+     */
+    public static void publishToGroups(Collection<String> groups, Object message) {
+        WebSocketClusterRouter router = clusterRouter;
+        if (router != null) {
+            router.broadcast(groups, message);
+        } else {
+            deliverToLocalGroups(groups, message);
+        }
+    }
+
+    private static void deliverToLocalGroups(Collection<String> groups, Object message) {
+        message = recordForReplay(groups, message);
+        List<WebSocketGroup> targets = new ArrayList<>(groups.size());
+        for (String group : groups) {
+            WebSocketGroup members = groupSockets.get(group);
+            for (String pattern : matchingPatterns(group)) {
+                WebSocketGroup subscribers = groupSockets.get(pattern);
+                if (subscribers != null) {
+                    targets.add(subscribers);
+                }
+            }
+            if (members != null) {
+                targets.add(members);
+            } else {
+                WebSocketConnection connection = connections.get(group);
+                if (connection != null) {
+                    WebSocketGroup direct = new WebSocketGroup(group);
+                    direct.add(connection);
+                    targets.add(direct);
+                }
+            }
+        }
+        GuicedWebSocket.writeToGroups(message, targets);
+    }
+
+    /**
+     * Publishes a keyed message to a group, across the cluster when clustering is enabled.
+     *
+     * @param group   the group name
+     * @param message the keyed message
+     * @see WebSocketGroupOptions#isConflating()
+     */
+    public static void publishToGroup(String group, WebSocketKeyedMessage message) {
+        WebSocketClusterRouter router = clusterRouter;
+        if (router != null) {
+            router.broadcast(group, message);
+        } else {
+            deliverToLocalGroup(group, message);
+        }
+    }
+
+    private static void deliverToLocalGroup(String group, Object message) {
+        message = recordForReplay(group, message);
+        WebSocketGroup members = groupSockets.get(group);
+        List<String> patterns = matchingPatterns(group);
+        if (!patterns.isEmpty()) {
+            deliverToMatchingGroups(members, patterns, message);
+            return;
+        }
+        if (members == null) {
+            WebSocketConnection connection = connections.get(group);
+            if (connection != null) {
+                //a connection's own id addresses it directly, without a group of one
+                if (message instanceof WebSocketKeyedMessage keyed) {
+                    connection.write(keyed.message(), keyed.key());
+                } else {
+                    connection.writePayload(message, null);
+                }
+            }
+            return;
+        }
+        if (message instanceof Buffer buffer) {
+            GuicedWebSocket.writeBinaryToGroup(buffer, members);
+        } else if (message instanceof WebSocketKeyedMessage keyed) {
+            GuicedWebSocket.writeMessageToGroup(keyed.message(), keyed.key(), members);
+        } else {
+            GuicedWebSocket.writeMessageToGroup(String.valueOf(message), members);
+        }
+    }
+
+    /**
+     * Buffers a text message published to a replay group and returns its envelope.
+     */
+    private static Object recordForReplay(String group, Object message) {
+        if (replayBuffers.isEmpty() || !getOptions().isResumeEnabled()) {
+            return message;
+        }
+        WebSocketReplayBuffer buffer = replayBuffers.get(group);
+        if (buffer == null || message instanceof Buffer) {
+            return message;
+        }
+        if (message instanceof WebSocketKeyedMessage keyed) {
+            return new WebSocketKeyedMessage(keyed.key(), buffer.append(keyed.message()));
+        }
+        return buffer.append(String.valueOf(message));
+    }
+
+    /**
+     * Buffers a text message published to several groups once in each of their replay buffers,
+     * under a single sequence number, and returns its envelope.
+     */
+    private static Object recordForReplay(Collection<String> groups, Object message) {
+        if (replayBuffers.isEmpty() || message instanceof Buffer || !getOptions().isResumeEnabled()) {
+            return message;
+        }
+        List<WebSocketReplayBuffer> buffers = new ArrayList<>();
+        for (String group : groups) {
+            WebSocketReplayBuffer buffer = replayBuffers.get(group);
+            if (buffer != null) {
+                buffers.add(buffer);
+            }
+        }
+        if (buffers.isEmpty()) {
+            return message;
+        }
+        return WebSocketReplayBuffer.appendAll(buffers, String.valueOf(message));
+    }
+
+    /**
+     * Checks if a name addresses a connection, on this node or, by the Vert.x handler id format, any node.
+     */
+    static boolean isConnectionId(String name) {
+        return name.startsWith(CONNECTION_ID_PREFIX) || connections.containsKey(name);
+    }
+
+    /**
+     * Returns the wildcard groups that also receive a publish to a group, other than the group itself.
+     *
+     * <p>A connection id addresses that one connection and is never matched against patterns.</p>
+     */
+    private static List<String> matchingPatterns(String group) {
+        if (topicMatcher.isEmpty() || isConnectionId(group)) {
+            return List.of();
+        }
+        List<String> patterns = topicMatcher.match(group);
+        if (!patterns.contains(group)) {
+            return patterns;
+        }
+        List<String> others = new ArrayList<>(patterns);
+        others.remove(group);
+        return others;
+    }
+
+    /**
+     * Writes a message to the exact group and the wildcard groups whose pattern matches its name,
+     * once per socket. Keyed messages are written group by group so that each group's conflation applies.
+     */
+    private static void deliverToMatchingGroups(WebSocketGroup members, List<String> patterns, Object message) {
+        List<WebSocketGroup> targets = new ArrayList<>(patterns.size() + 1);
+        if (members != null) {
+            targets.add(members);
+        }
+        for (String pattern : patterns) {
+            WebSocketGroup subscribers = groupSockets.get(pattern);
+            if (subscribers != null) {
+                targets.add(subscribers);
+            }
+        }
+        if (message instanceof WebSocketKeyedMessage keyed) {
+            for (WebSocketGroup target : targets) {
+                GuicedWebSocket.writeMessageToGroup(keyed.message(), keyed.key(), target);
+            }
+        } else {
+            GuicedWebSocket.writeToGroups(message, targets);
+        }
+    }
+
+    /**
+     * Returns the matcher of the wildcard groups that have members on this instance.
+     *
+     * <p>A group configured as a {@link WebSocketGroupOptions#isPattern() pattern} is joined and left like
+     * any group, and every publish to a group name it matches is also delivered to its members, on top
+     * of the group's own members. Names are only patterns by configuration, so a group called {@code #}
+     * is an ordinary group unless configured otherwise.</p>
+     *
+     * @return the topic matcher
+     */
+    public static WebSocketTopicMatcher getTopicMatcher() {
+        return topicMatcher;
+    }
+
+    private static Collection<String> localApplicationGroups() {
+        List<String> groups = new ArrayList<>();
+        groupSockets.forEach((group, members) -> {
+            if (!members.isEmpty() && !connections.containsKey(group)) {
+                groups.add(group);
+            }
+        });
+        return groups;
+    }
+
+    /**
+     * Starts the periodic idle sweep once per JVM.
+     *
+     * <p>The sweep runs every half idle timeout. Connections without inbound activity for half of
+     * {@link WebSocketServerOptions#getIdleTimeoutSeconds()} are pinged, and connections past the
+     * full timeout are closed with status 1001.</p>
+     *
+     * @param vertx the Vertx instance owning the timer
+     */
+    private static void startIdleReaper(Vertx vertx) {
+        if (!idleReaperStarted.compareAndSet(false, true)) {
+            return;
+        }
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(getOptions().getIdleTimeoutSeconds());
+        vertx.setPeriodic(Math.max(1000L, timeoutMillis / 2), timerId -> reapIdleConnections());
+    }
+
+    /**
+     * Pings connections that have gone quiet and closes those past the idle timeout.
+     */
+    public static void reapIdleConnections() {
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(getOptions().getIdleTimeoutSeconds());
+        for (WebSocketConnection connection : connections.values()) {
+            long idle = connection.getIdleNanos();
+            if (idle >= timeoutNanos) {
+                WebSocketStatistics.idleClosed();
+                log.debug("Closing idle web socket {}", connection.getId());
+                connection.runOnContext(() -> connection.getSocket()
+                                                        .close((short) 1001, "Idle timeout"));
+            } else if (idle >= timeoutNanos / 2) {
+                WebSocketStatistics.idlePing();
+                connection.runOnContext(() -> connection.getSocket()
+                                                        .writePing(Buffer.buffer()));
+            }
+        }
+    }
+
     /**
      * Ensures a group listener and registers the provided WebSocket.
      *
+     * <p>Application groups are capped at {@link WebSocketServerOptions#getMaxGroupSize()}; the
+     * {@code Everyone} group and a connection's own group are exempt.</p>
+     *
+     * <p>A socket that is not registered on this node, or that has closed, is ignored.</p>
+     *
      * @param vertx     the Vertx instance used for EventBus consumers
      * @param group     the group name
      * @param webSocket the WebSocket connection
+     * @throws WebSocketException if the group is full
      */
     public static void configureGroupListener(Vertx vertx, String group, ServerWebSocket webSocket) {
-        if (!groupConsumers.containsKey(group) || groupConsumers
-                .get(group)
-                .isEmpty()) {
-            groupConsumers.put(group, new CopyOnWriteArrayList<>());
-            groupSockets.put(group, new CopyOnWriteArrayList<>());
-            MessageConsumer<String> r = vertx
-                    .eventBus()
-                    .consumer(group, message -> {
-                        List<ServerWebSocket> serverWebSockets = groupSockets.get(group);
-                        for (ServerWebSocket serverWebSocket : serverWebSockets) {
-                            GuicedWebSocket.writeMessageToSocket(message.body(), serverWebSocket);
-                            //serverWebSocket.writeTextMessage((String) message.body());
-                        }
-                    });
-            groupConsumers
-                    .get(group)
-                    .add(r);
-        }
-        if (!groupSockets.containsKey(group)) {
-            groupSockets.put(group, new CopyOnWriteArrayList<>());
-        }
-        groupSockets
-                .get(group)
-                .add(webSocket);
-    }
-
-    private io.smallrye.mutiny.Uni<Void> processMessageInContext(ServerWebSocket ctx, String msg, CallScopeProperties properties) {
+        WebSocketConnection connection = connectionFor(webSocket);
+        if (connection == null) {
+            log.debug("Ignoring join of group {} for unknown or closed web socket {}", group, webSocket.textHandlerID());
+            return;
+        }
+        joinGroup(vertx, group, connection);
+    }
+
+    /**
+     * Adds a connection to a group, creating the group and its EventBus consumer if needed.
+     *
+     * <p>Runs inside {@code groupSockets.compute} so that joins and reclaims of the same group are
+     * serialized: concurrent first joins register exactly one consumer, a join can never land in
+     * a group instance that a concurrent reclaim is removing, and concurrent joins cannot take a
+     * group past its maximum size.</p>
+     *
+     * @throws WebSocketException if the group is full
+     */
+    private static void joinGroup(Vertx vertx, String group, WebSocketConnection connection) {
+        WebSocketGroup members = groupSockets.compute(group, (name, existing) -> {
+            checkGroupAdmission(name, existing, connection.getId());
+            WebSocketGroup joined = existing == null ? new WebSocketGroup(name) : existing;
+            List<MessageConsumer<String>> consumers = groupConsumers.get(name);
+            if (consumers == null || consumers.isEmpty()) {
+                groupConsumers.put(name, new CopyOnWriteArrayList<>(List.of(registerGroupConsumer(vertx, name))));
+            }
+            if (joined.add(connection) && joined.size() == 1) {
+                if (isPatternGroup(name)) {
+                    topicMatcher.add(name);
+                }
+                WebSocketClusterRouter router = clusterRouter;
+                if (router != null && !connections.containsKey(name)) {
+                    router.localGroupJoined(name);
+                }
+            }
+            return joined;
+        });
+        connection.joined(members);
+        //the socket closed while joining: its groups were already released, so undo this one
+        if (connections.get(connection.getId()) != connection) {
+            connection.left(members);
+            removeSocketFromGroup(members, connection);
+        }
+    }
+
+    private static MessageConsumer<String> registerGroupConsumer(Vertx vertx, String group) {
+        return vertx
+                .eventBus()
+                .consumer(group, message -> {
+                    WebSocketGroup members = groupSockets.get(group);
+                    if (members != null) {
+                        GuicedWebSocket.writeMessageToGroup(String.valueOf(recordForReplay(group, message.body())), members);
+                    }
+                });
+    }
+
+    private static void checkGroupAdmission(String group, WebSocketGroup members, String id) {
+        if (EveryoneGroup.equalsIgnoreCase(group) || group.equals(id)) {
+            return;
+        }
+        if (members != null && members.size() >= getOptions().getMaxGroupSize()
+                && !members.contains(id)) {
+            WebSocketStatistics.groupJoinRejected();
+            log.warn("WS Group " + group + " is at its maximum size of " + getOptions().getMaxGroupSize() + ", rejecting join");
+            throw new WebSocketException("Group " + group + " is full");
+        }
+    }
+
+    /**
+     * Hands an inbound message to its listener according to {@link WebSocketServerOptions#getExecutionMode()}.
+     *
+     * <p>On the event loop the message is processed inline. Otherwise it is queued on the
+     * connection, which processes its messages one at a time on the inbound executor and
+     * pauses the socket while too many are outstanding.</p>
+     *
+     * @param connection the connection the message arrived on
+     * @param receiver   hands the message to the connection's {@link GuicedWebSocket}
+     */
+    private void handleInbound(WebSocketConnection connection,
+                               Function<GuicedWebSocket, io.smallrye.mutiny.Uni<Void>> receiver) {
+        Executor executor = inboundExecutor(vertx);
+        if (executor == null) {
+            processMessageInContext(connection, receiver)
+                    .subscribe()
+                    .with(
+                            v -> {
+                            },
+                            e -> log.error("WebSocket message processing failed", e)
+                    )
+            ;
+        } else {
+            connection.submitInbound(() -> processMessageInContext(connection, receiver).runSubscriptionOn(executor));
+        }
+    }
+
+    /**
+     * Returns the executor inbound messages are processed on, creating it on first use.
+     *
+     * @param vertx the Vertx instance owning the worker pool
+     * @return the executor, or null in {@link WebSocketExecutionMode#EVENT_LOOP} mode
+     */
+    private static Executor inboundExecutor(Vertx vertx) {
+        Executor executor = inboundExecutor;
+        if (executor != null || getOptions().getExecutionMode() == WebSocketExecutionMode.EVENT_LOOP) {
+            return executor;
+        }
+        synchronized (VertxSocketHttpWebSocketConfigurator.class) {
+            if (inboundExecutor == null) {
+                if (getOptions().getExecutionMode() == WebSocketExecutionMode.VIRTUAL_THREAD) {
+                    inboundExecutor = Executors.newVirtualThreadPerTaskExecutor();
+                } else {
+                    WorkerExecutor workers = vertx.createSharedWorkerExecutor("guicedee-websockets", getOptions().getWorkerPoolSize());
+                    inboundExecutor = command -> workers.executeBlocking(() -> {
+                        command.run();
+                        return null;
+                    }, false);
+                }
+            }
+            return inboundExecutor;
+        }
+    }
+
+    /**
+     * Dispatches an inbound message inside a call scope bound to its connection.
+     *
+     * <p>The scope is seeded with the {@link GuicedWebSocket} resolved when the connection was
+     * accepted. Each message gets its own {@link CallScopeProperties}, filled from the properties
+     * captured on accept, so properties written while handling one message are not seen by the next
+     * and are never shared between the threads of {@code WORKER} or {@code VIRTUAL_THREAD} mode.</p>
+     *
+     * @param connection the connection the message arrived on
+     * @param receiver   hands the message to the connection's {@link GuicedWebSocket}
+     * @return a Uni that completes when the message has been handled
+     */
+    private io.smallrye.mutiny.Uni<Void> processMessageInContext(WebSocketConnection connection,
+                                                                 Function<GuicedWebSocket, io.smallrye.mutiny.Uni<Void>> receiver) {
         return io.smallrye.mutiny.Uni
                 .createFrom()
                 .deferred(() -> {
                     callScoper.enter();
                     try {
-                        callScoper.seed(Key.get(ServerWebSocket.class), ctx);
-                        CallScopeProperties props = IGuiceContext.get(CallScopeProperties.class);
-                        props.setSource(properties.getSource());
+                        callScoper.seed(Key.get(ServerWebSocket.class), connection.getSocket());
+                        CallScopeProperties accepted = connection.getScopeProperties();
+                        CallScopeProperties properties = IGuiceContext.get(CallScopeProperties.class);
+                        properties.setSource(accepted.getSource());
                         properties
                                 .getProperties()
-                                .put("ServerWebSocket", ctx);
-                        props
-                                .getProperties()
-                                .putAll(properties.getProperties());
-                        GuicedWebSocket guicedWebSocket = (GuicedWebSocket) IGuiceContext.get(IGuicedWebSocket.class);
-                        return guicedWebSocket
-                                .receiveMessage(msg)
+                                .putAll(accepted.getProperties());
+                        GuicedWebSocket guicedWebSocket = connection.getGuicedWebSocket();
+                        callScoper.seed(Key.get(GuicedWebSocket.class), guicedWebSocket);
+                        return receiver
+                                .apply(guicedWebSocket)
                                 .eventually(() -> {
                                     callScoper.exit();
                                     return io.smallrye.mutiny.Uni.createFrom().voidItem();
@@ -286,6 +1317,7 @@ public class VertxSocketHttpWebSocketConfigurator implements IGuicePostStartup<V
     @Override
     public HttpServerOptions builder(HttpServerOptions builder) {
         webSocketServerOptions.validate();
+        options = webSocketServerOptions;
 
         builder = builder.setRegisterWebSocketWriteHandlers(
                 webSocketServerOptions.isRegisterWebSocketWriteHandlers());
@@ -293,11 +1325,33 @@ public class VertxSocketHttpWebSocketConfigurator implements IGuicePostStartup<V
                 webSocketServerOptions.isPerMessageCompressionSupported());
         builder = builder.setCompressionLevel(
                 webSocketServerOptions.getCompressionLevel());
+        builder = builder.setMaxWebSocketFrameSize(
+                webSocketServerOptions.getMaxFrameSize());
+        builder = builder.setMaxWebSocketMessageSize(
+                webSocketServerOptions.getMaxMessageSize());
         builder = builder.setMaxChunkSize(
                 webSocketServerOptions.getMaxChunkSize());
         builder = builder.setMaxFormAttributeSize(
                 webSocketServerOptions.getMaxFormAttributeSize());
 
+        Map<String, WebSocketMessageCodec> codecs = GuicedWebSocketHandlers.codecs();
+        if (!codecs.isEmpty()) {
+            //offer the registered codecs through Sec-WebSocket-Protocol, keeping any subprotocols already configured
+            List<String> subProtocols = new ArrayList<>();
+            if (builder.getWebSocketSubProtocols() != null) {
+                subProtocols.addAll(builder.getWebSocketSubProtocols());
+            }
+            for (String subProtocol : codecs.keySet()) {
+                if (!subProtocols.contains(subProtocol)) {
+                    subProtocols.add(subProtocol);
+                }
+            }
+            if (!subProtocols.contains(JsonWebSocketMessageCodec.SUB_PROTOCOL)) {
+                subProtocols.add(JsonWebSocketMessageCodec.SUB_PROTOCOL);
+            }
+            builder = builder.setWebSocketSubProtocols(subProtocols);
+        }
+
         return builder;
     }
 
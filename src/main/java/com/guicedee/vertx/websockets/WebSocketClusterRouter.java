@@ -0,0 +1,575 @@
+package com.guicedee.vertx.websockets;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.jspecify.annotations.NonNull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Routes group broadcasts between the nodes of a clustered Vert.x deployment.
+ *
+ * <p>Each node keeps a group &rarr; node interest table built from join and leave announcements
+ * published on {@link #INTEREST_ADDRESS}. A node announces a group when it gains its first local
+ * member and withdraws it when the last local member leaves. A broadcast is delivered to local
+ * members directly, with no event-bus hop, and sent once to each remote node that has members of the
+ * group, on that node's own address. Nodes without members of the group receive nothing.
+ * {@link VertxSocketHttpWebSocketConfigurator#isPatternGroup(String) Pattern groups} are announced
+ * with a pattern flag and matched with a {@link WebSocketTopicMatcher}, so a node subscribed to
+ * {@code prices.#} receives a publish to {@code prices.eu.gbp}. Connection ids are never matched.</p>
+ *
+ * <p>The router is an instance per {@link Vertx}, with the local delivery and local group lookups
+ * supplied by the caller, so several routers on separate Vert.x instances can run in one JVM.</p>
+ *
+ * <p>Every node publishes a heartbeat on {@link #INTEREST_ADDRESS}. A node that has not been heard
+ * from for three heartbeat intervals, e.g. one that crashed without calling {@link #stop()}, is
+ * expired and its interest entries removed.</p>
+ *
+ * <p>The heartbeat carries a digest of the sender's local groups. Each router keeps the same digest of
+ * the groups it has recorded for every remote node, and asks a node for a snapshot of its groups when
+ * the two differ, e.g. after a lost join or leave announcement, or when a heartbeat comes from a node
+ * it does not know, e.g. one expired during a network partition. The snapshot replaces what was
+ * recorded for the node, so the interest table converges within a heartbeat of any drift.</p>
+ *
+ * @see WebSocketServerOptions#isClustered()
+ * @see VertxSocketHttpWebSocketConfigurator#getClusterRouter()
+ */
+@Log4j2
+public class WebSocketClusterRouter
+{
+    /**
+     * The address on which nodes publish group interest changes
+     */
+    public static final String INTEREST_ADDRESS = "guicedee.websockets.cluster.interest";
+    /**
+     * The address prefix of each node's delivery address
+     */
+    public static final String NODE_ADDRESS_PREFIX = "guicedee.websockets.cluster.node.";
+
+    private static final String OP_JOIN = "join";
+    private static final String OP_LEAVE = "leave";
+    private static final String OP_HELLO = "hello";
+    private static final String OP_BYE = "bye";
+    private static final String OP_DELIVER = "deliver";
+    private static final String OP_HEARTBEAT = "heartbeat";
+    private static final String OP_SYNC = "sync";
+    private static final String OP_GROUPS = "groups";
+
+    /**
+     * The default interval between heartbeats
+     */
+    public static final long DEFAULT_HEARTBEAT_MILLIS = 5000;
+
+    private final Vertx vertx;
+    /**
+     * This node's identifier
+     */
+    @Getter
+    private final String nodeId;
+    private final BiConsumer<String, Object> localDelivery;
+    private final BiConsumer<Collection<String>, Object> localMultiDelivery;
+    private final Supplier<Collection<String>> localGroups;
+    private final long heartbeatMillis;
+    private final Map<String, Set<String>> interest = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    /**
+     * The digest of the groups recorded in {@link #interest} for each remote node
+     */
+    private final Map<String, Long> remoteDigests = new ConcurrentHashMap<>();
+    private final WebSocketTopicMatcher remotePatterns = new WebSocketTopicMatcher();
+
+    private MessageConsumer<JsonObject> interestConsumer;
+    private MessageConsumer<Object> nodeConsumer;
+    private long heartbeatTimer = -1;
+
+    /**
+     * Creates a router for a node.
+     *
+     * @param vertx         the (clustered) Vert.x instance
+     * @param localDelivery writes a text ({@link String}), binary ({@link io.vertx.core.buffer.Buffer}) or {@link WebSocketKeyedMessage} message to the local members of a group
+     * @param localGroups   returns the groups that currently have local members
+     */
+    public WebSocketClusterRouter(@NonNull Vertx vertx, @NonNull BiConsumer<String, Object> localDelivery,
+                                  @NonNull Supplier<Collection<String>> localGroups)
+    {
+        this(vertx, localDelivery, (groups, message) -> {
+            for (String group : groups)
+            {
+                localDelivery.accept(group, message);
+            }
+        }, localGroups);
+    }
+
+    /**
+     * Creates a router for a node with a de-duplicating delivery for multi-group broadcasts.
+     *
+     * @param vertx              the (clustered) Vert.x instance
+     * @param localDelivery      writes a message to the local members of a group
+     * @param localMultiDelivery writes a message once to each local member of any of several groups
+     * @param localGroups        returns the groups that currently have local members
+     */
+    public WebSocketClusterRouter(@NonNull Vertx vertx, @NonNull BiConsumer<String, Object> localDelivery,
+                                  @NonNull BiConsumer<Collection<String>, Object> localMultiDelivery,
+                                  @NonNull Supplier<Collection<String>> localGroups)
+    {
+        this(vertx, localDelivery, localMultiDelivery, localGroups, DEFAULT_HEARTBEAT_MILLIS);
+    }
+
+    /**
+     * Creates a router for a node with a custom heartbeat interval.
+     *
+     * @param vertx              the (clustered) Vert.x instance
+     * @param localDelivery      writes a message to the local members of a group
+     * @param localMultiDelivery writes a message once to each local member of any of several groups
+     * @param localGroups        returns the groups that currently have local members
+     * @param heartbeatMillis    the interval between heartbeats; a node silent for three intervals is expired
+     */
+    public WebSocketClusterRouter(@NonNull Vertx vertx, @NonNull BiConsumer<String, Object> localDelivery,
+                                  @NonNull BiConsumer<Collection<String>, Object> localMultiDelivery,
+                                  @NonNull Supplier<Collection<String>> localGroups, long heartbeatMillis)
+    {
+        if (heartbeatMillis <= 0)
+        {
+            throw new IllegalArgumentException("heartbeatMillis must be > 0");
+        }
+        this.vertx = vertx;
+        this.heartbeatMillis = heartbeatMillis;
+        this.nodeId = UUID.randomUUID()
+                          .toString();
+        this.localDelivery = localDelivery;
+        this.localMultiDelivery = localMultiDelivery;
+        this.localGroups = localGroups;
+    }
+
+    /**
+     * Registers this node's consumers and asks the other nodes to announce their groups.
+     *
+     * @return this router
+     */
+    public WebSocketClusterRouter start()
+    {
+        interestConsumer = vertx.eventBus()
+                                .consumer(INTEREST_ADDRESS, this::onInterest);
+        nodeConsumer = vertx.eventBus()
+                            .consumer(NODE_ADDRESS_PREFIX + nodeId, this::onNodeMessage);
+        announce(OP_HELLO, null);
+        for (String group : localGroups.get())
+        {
+            announce(OP_JOIN, group);
+        }
+        heartbeatTimer = vertx.setPeriodic(heartbeatMillis, id -> {
+            vertx.eventBus()
+                 .publish(INTEREST_ADDRESS, new JsonObject().put("op", OP_HEARTBEAT)
+                                                            .put("node", nodeId)
+                                                            .put("digest", digest(localGroups.get())));
+            expireSilentNodes();
+        });
+        return this;
+    }
+
+    /**
+     * Withdraws this node from the cluster and unregisters its consumers.
+     */
+    public void stop()
+    {
+        if (heartbeatTimer >= 0)
+        {
+            vertx.cancelTimer(heartbeatTimer);
+            heartbeatTimer = -1;
+        }
+        announce(OP_BYE, null);
+        if (interestConsumer != null)
+        {
+            interestConsumer.unregister();
+        }
+        if (nodeConsumer != null)
+        {
+            nodeConsumer.unregister();
+        }
+        interest.clear();
+        lastSeen.clear();
+        remoteDigests.clear();
+        for (String pattern : remotePatterns.getPatterns())
+        {
+            remotePatterns.remove(pattern);
+        }
+    }
+
+    /**
+     * Announces that a group gained its first local member.
+     *
+     * @param group the group name
+     */
+    public void localGroupJoined(@NonNull String group)
+    {
+        announce(OP_JOIN, group);
+    }
+
+    /**
+     * Announces that the last local member of a group left.
+     *
+     * @param group the group name
+     */
+    public void localGroupLeft(@NonNull String group)
+    {
+        announce(OP_LEAVE, group);
+    }
+
+    /**
+     * Delivers a message to the local members of a group and once to each remote node with members.
+     *
+     * @param group   the group name
+     * @param message the message, a {@link String} for text, a {@link io.vertx.core.buffer.Buffer} for binary
+     *                or a {@link WebSocketKeyedMessage}
+     */
+    public void broadcast(@NonNull String group, @NonNull Object message)
+    {
+        localDelivery.accept(group, message);
+        Set<String> nodes = interestedNodes(group);
+        if (nodes.isEmpty())
+        {
+            return;
+        }
+        DeliveryOptions options = new DeliveryOptions().addHeader("op", OP_DELIVER)
+                                                       .addHeader("group", group);
+        Object body = message;
+        if (message instanceof WebSocketKeyedMessage keyed)
+        {
+            options.addHeader("key", keyed.key());
+            body = keyed.message();
+        }
+        for (String node : nodes)
+        {
+            vertx.eventBus()
+                 .send(NODE_ADDRESS_PREFIX + node, body, options);
+        }
+    }
+
+    /**
+     * Delivers a message once to the local members of several groups and once to each remote node
+     * with members of any of them; each node de-duplicates its own members.
+     *
+     * @param groups  the group names
+     * @param message the message, a {@link String} for text or a {@link io.vertx.core.buffer.Buffer} for binary
+     */
+    public void broadcast(@NonNull Collection<String> groups, @NonNull Object message)
+    {
+        localMultiDelivery.accept(groups, message);
+        Set<String> nodes = new HashSet<>();
+        for (String group : groups)
+        {
+            nodes.addAll(interestedNodes(group));
+        }
+        if (nodes.isEmpty())
+        {
+            return;
+        }
+        DeliveryOptions options = new DeliveryOptions().addHeader("op", OP_DELIVER);
+        for (String group : groups)
+        {
+            options.addHeader("group", group);
+        }
+        for (String node : nodes)
+        {
+            vertx.eventBus()
+                 .send(NODE_ADDRESS_PREFIX + node, message, options);
+        }
+    }
+
+    /**
+     * Returns the remote nodes that have members of a group, or of a wildcard group matching it.
+     *
+     * @param group the group name
+     * @return the node identifiers, empty if no remote node has members
+     */
+    public Set<String> getInterestedNodes(@NonNull String group)
+    {
+        return Set.copyOf(interestedNodes(group));
+    }
+
+    /**
+     * Returns the remote nodes this router has heard from within the last three heartbeat intervals.
+     *
+     * @return the node identifiers
+     */
+    public Set<String> getKnownNodes()
+    {
+        return Set.copyOf(lastSeen.keySet());
+    }
+
+    /**
+     * Returns the nodes with members of a group or of a wildcard group matching it.
+     */
+    private Set<String> interestedNodes(String group)
+    {
+        Set<String> nodes = interest.get(group);
+        if (VertxSocketHttpWebSocketConfigurator.isConnectionId(group))
+        {
+            return nodes == null ? Set.of() : nodes;
+        }
+        List<String> patterns = remotePatterns.match(group);
+        if (patterns.isEmpty())
+        {
+            return nodes == null ? Set.of() : nodes;
+        }
+        Set<String> all = nodes == null ? new HashSet<>() : new HashSet<>(nodes);
+        for (String pattern : patterns)
+        {
+            Set<String> subscribed = interest.get(pattern);
+            if (subscribed != null)
+            {
+                all.addAll(subscribed);
+            }
+        }
+        return all;
+    }
+
+    private void announce(String op, String group)
+    {
+        JsonObject body = new JsonObject().put("op", op)
+                                          .put("node", nodeId);
+        if (group != null)
+        {
+            body.put("group", group);
+            if (OP_JOIN.equals(op) && VertxSocketHttpWebSocketConfigurator.isPatternGroup(group))
+            {
+                body.put("pattern", true);
+            }
+        }
+        vertx.eventBus()
+             .publish(INTEREST_ADDRESS, body);
+    }
+
+    private void onInterest(Message<JsonObject> message)
+    {
+        JsonObject body = message.body();
+        String node = body.getString("node");
+        if (nodeId.equals(node))
+        {
+            return;
+        }
+        String op = body.getString("op");
+        if (OP_BYE.equals(op))
+        {
+            lastSeen.remove(node);
+            removeNode(node);
+            return;
+        }
+        boolean known = lastSeen.put(node, System.nanoTime()) != null;
+        if (!known && !OP_HELLO.equals(op))
+        {
+            //a node we never saw, or expired while it was unreachable: ask for all of its groups
+            requestSync(node);
+        }
+        switch (op)
+        {
+            case OP_JOIN -> addInterest(body.getString("group"), node, body.getBoolean("pattern", false));
+            case OP_LEAVE -> removeInterest(body.getString("group"), node);
+            case OP_HELLO ->
+            {
+                removeNode(node);
+                sendGroupsTo(node);
+            }
+            case OP_HEARTBEAT ->
+            {
+                Long digest = body.getLong("digest");
+                if (known && digest != null && digest.longValue() != remoteDigests.getOrDefault(node, 0L))
+                {
+                    log.debug("WebSocket cluster node {} has drifted from its recorded groups, resyncing", node);
+                    requestSync(node);
+                }
+            }
+            default -> log.debug("Unknown cluster interest operation {}", body);
+        }
+    }
+
+    private void requestSync(String node)
+    {
+        vertx.eventBus()
+             .send(NODE_ADDRESS_PREFIX + node, nodeId, new DeliveryOptions().addHeader("op", OP_SYNC));
+    }
+
+    /**
+     * Sends a snapshot of this node's groups directly to another node.
+     */
+    private void sendGroupsTo(String node)
+    {
+        JsonArray groups = new JsonArray();
+        JsonArray patterns = new JsonArray();
+        for (String group : localGroups.get())
+        {
+            groups.add(group);
+            if (VertxSocketHttpWebSocketConfigurator.isPatternGroup(group))
+            {
+                patterns.add(group);
+            }
+        }
+        vertx.eventBus()
+             .send(NODE_ADDRESS_PREFIX + node, new JsonObject().put("node", nodeId)
+                                                               .put("groups", groups)
+                                                               .put("patterns", patterns),
+                     new DeliveryOptions().addHeader("op", OP_GROUPS));
+    }
+
+    /**
+     * Replaces the groups recorded for a node with its snapshot.
+     */
+    private void replaceGroups(JsonObject snapshot)
+    {
+        String node = snapshot.getString("node");
+        lastSeen.put(node, System.nanoTime());
+        Set<String> groups = new HashSet<>();
+        for (Object group : snapshot.getJsonArray("groups"))
+        {
+            groups.add(String.valueOf(group));
+        }
+        for (Map.Entry<String, Set<String>> entry : interest.entrySet())
+        {
+            if (!groups.contains(entry.getKey()) && entry.getValue()
+                                                        .contains(node))
+            {
+                removeInterest(entry.getKey(), node);
+            }
+        }
+        JsonArray patterns = snapshot.getJsonArray("patterns");
+        for (String group : groups)
+        {
+            addInterest(group, node, patterns.contains(group));
+        }
+    }
+
+    /**
+     * An order-independent digest of a set of group names, the sum of a 64-bit FNV-1a hash of each.
+     */
+    private static long digest(Iterable<String> groups)
+    {
+        long digest = 0;
+        for (String group : groups)
+        {
+            digest += hash(group);
+        }
+        return digest;
+    }
+
+    private static long hash(String group)
+    {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < group.length(); i++)
+        {
+            hash ^= group.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Removes the interest entries of nodes that have missed three heartbeats.
+     */
+    private void expireSilentNodes()
+    {
+        long expiredBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(heartbeatMillis * 3);
+        lastSeen.forEach((node, seen) -> {
+            if (seen - expiredBefore < 0 && lastSeen.remove(node, seen))
+            {
+                log.info("WebSocket cluster node " + node + " missed its heartbeats, removing its groups");
+                removeNode(node);
+            }
+        });
+    }
+
+    private void onNodeMessage(Message<Object> message)
+    {
+        String op = message.headers()
+                           .get("op");
+        if (OP_DELIVER.equals(op))
+        {
+            List<String> groups = message.headers()
+                                         .getAll("group");
+            if (groups.size() > 1)
+            {
+                localMultiDelivery.accept(groups, message.body());
+                return;
+            }
+            String key = message.headers()
+                                .get("key");
+            Object body = key == null ? message.body() : new WebSocketKeyedMessage(key, String.valueOf(message.body()));
+            localDelivery.accept(message.headers()
+                                        .get("group"), body);
+        }
+        else if (OP_JOIN.equals(op))
+        {
+            String node = message.headers()
+                                 .get("node");
+            lastSeen.put(node, System.nanoTime());
+            addInterest(String.valueOf(message.body()), node, Boolean.parseBoolean(message.headers()
+                                                                                          .get("pattern")));
+        }
+        else if (OP_GROUPS.equals(op))
+        {
+            replaceGroups((JsonObject) message.body());
+        }
+        else if (OP_SYNC.equals(op))
+        {
+            sendGroupsTo(String.valueOf(message.body()));
+        }
+    }
+
+    private void addInterest(String group, String node, boolean pattern)
+    {
+        interest.compute(group, (k, nodes) -> {
+            if (nodes == null)
+            {
+                nodes = ConcurrentHashMap.newKeySet();
+            }
+            if (pattern && WebSocketTopicMatcher.isPattern(group))
+            {
+                remotePatterns.add(group);
+            }
+            if (nodes.add(node))
+            {
+                remoteDigests.merge(node, hash(group), Long::sum);
+            }
+            return nodes;
+        });
+    }
+
+    private void removeInterest(String group, String node)
+    {
+        interest.computeIfPresent(group, (k, nodes) -> {
+            if (nodes.remove(node))
+            {
+                remoteDigests.merge(node, -hash(group), Long::sum);
+            }
+            if (nodes.isEmpty())
+            {
+                remotePatterns.remove(group);
+                return null;
+            }
+            return nodes;
+        });
+    }
+
+    private void removeNode(String node)
+    {
+        for (String group : interest.keySet())
+        {
+            removeInterest(group, node);
+        }
+        remoteDigests.remove(node);
+    }
+}
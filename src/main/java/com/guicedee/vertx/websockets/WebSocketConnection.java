@@ -0,0 +1,765 @@
+package com.guicedee.vertx.websockets;
+
+import com.guicedee.client.scopes.CallScopeProperties;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.log4j.Log4j2;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per-connection outbound writer for a {@link ServerWebSocket}.
+ *
+ * <p>Every write is executed on the event-loop context that owns the socket. Calls made
+ * from that context write straight through; calls from any other thread are handed to the
+ * owning context with {@link Context#runOnContext}, which executes tasks in submission order.
+ * No shared monitor is taken, so concurrent writers to different sockets never contend.</p>
+ *
+ * <p>When the socket's write queue is full, messages are held in a bounded per-connection
+ * queue and flushed from the socket's drain handler. Once the queue reaches
+ * {@link WebSocketServerOptions#getMaxQueuedMessages()} or
+ * {@link WebSocketServerOptions#getMaxQueuedBytes()} the configured
+ * {@link WebSocketOverflowPolicy} is applied. The queue is only touched on the owning context.</p>
+ *
+ * @see VertxSocketHttpWebSocketConfigurator#connections
+ * @see GuicedWebSocket#writeMessageToSocket(String, ServerWebSocket)
+ */
+@Log4j2
+public class WebSocketConnection
+{
+    /**
+     * The connection identifier (the socket's {@code textHandlerID})
+     */
+    @Getter
+    private final String id;
+    /**
+     * The underlying Vert.x socket
+     */
+    @Getter
+    private final ServerWebSocket socket;
+    /**
+     * The context that owns the socket, or null when the socket was registered off-context
+     */
+    @Getter
+    private final @Nullable Context context;
+
+    /**
+     * The call-scope properties captured when the connection was accepted.
+     *
+     * <p>Read-only once the connection is registered: each inbound message is handled with its own
+     * properties, copied from these.</p>
+     */
+    @Getter
+    @Setter
+    private CallScopeProperties scopeProperties;
+    /**
+     * The WebSocket facade resolved when the connection was accepted, reused for every inbound message
+     */
+    @Getter
+    @Setter
+    private GuicedWebSocket guicedWebSocket;
+    /**
+     * The message codec negotiated through {@code Sec-WebSocket-Protocol}
+     */
+    @Getter
+    @Setter
+    private WebSocketMessageCodec codec = JsonWebSocketMessageCodec.INSTANCE;
+    /**
+     * The resume session token issued to the connection, null when resuming is disabled
+     */
+    @Getter
+    @Setter
+    private @Nullable String sessionToken;
+
+    private volatile long lastActivity = System.nanoTime();
+
+    private static final WebSocketGroup[] NO_GROUPS = new WebSocketGroup[0];
+    private WebSocketGroup[] groups = NO_GROUPS;
+    private int groupCount;
+    private @Nullable MessageConsumer<Object> consumer;
+
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private final Map<String, Pending> pendingByKey = new HashMap<>();
+    private long pendingBytes;
+    private boolean drainHandlerSet;
+
+    private @Nullable WebSocketGroupOptions batchOptions;
+    private final List<String> batch = new ArrayList<>();
+    private int batchBytes;
+    private long batchTimer = -1;
+
+    private final ArrayDeque<Supplier<Uni<Void>>> inbound = new ArrayDeque<>();
+    private int inFlight;
+    private boolean processing;
+    private boolean paused;
+
+    /**
+     * Creates a new connection writer.
+     *
+     * @param id      the connection identifier
+     * @param socket  the socket to write to
+     * @param context the owning context, may be null to write from the calling thread in which case callers must serialize writes
+     */
+    public WebSocketConnection(@NonNull String id, @NonNull ServerWebSocket socket, @Nullable Context context)
+    {
+        this.id = id;
+        this.socket = socket;
+        this.context = context;
+    }
+
+    /**
+     * Checks if the calling thread is running on the owning context of this connection
+     *
+     * @return true when writes may go straight to the socket
+     */
+    public boolean isOnContext()
+    {
+        return context == null || Vertx.currentContext() == context;
+    }
+
+    /**
+     * Writes a text message to the socket on its owning context.
+     *
+     * @param message the message to write (not null)
+     */
+    public void write(@NonNull String message)
+    {
+        write(message, null);
+    }
+
+    /**
+     * Writes a text message to the socket on its owning context.
+     *
+     * @param message the message to write (not null)
+     * @param key     the coalescing key used by {@link WebSocketOverflowPolicy#COALESCE_LATEST}, may be null
+     */
+    public void write(@NonNull String message, @Nullable String key)
+    {
+        writePayload(message, key);
+    }
+
+    /**
+     * Writes a pre-built frame to the socket on its owning context.
+     *
+     * <p>Writing a frame consumes it: Vert.x hands the frame's buffer to Netty, which reads it
+     * and releases it. A frame must therefore be written to one socket, once. To send the same
+     * payload to many sockets write the {@link String} or {@link Buffer} to each of them.</p>
+     *
+     * @param frame the frame to write (not null)
+     */
+    public void write(@NonNull WebSocketFrame frame)
+    {
+        write(frame, null);
+    }
+
+    /**
+     * Writes a pre-built frame to the socket on its owning context.
+     *
+     * @param frame the frame to write (not null)
+     * @param key   the coalescing key used by {@link WebSocketOverflowPolicy#COALESCE_LATEST}, may be null
+     */
+    public void write(@NonNull WebSocketFrame frame, @Nullable String key)
+    {
+        writePayload(frame, key);
+    }
+
+    /**
+     * Writes a binary message to the socket on its owning context.
+     *
+     * @param message the message to write (not null)
+     */
+    public void write(@NonNull Buffer message)
+    {
+        write(message, null);
+    }
+
+    /**
+     * Writes a binary message to the socket on its owning context.
+     *
+     * @param message the message to write (not null)
+     * @param key     the coalescing key used by {@link WebSocketOverflowPolicy#COALESCE_LATEST}, may be null
+     */
+    public void write(@NonNull Buffer message, @Nullable String key)
+    {
+        writePayload(message, key);
+    }
+
+    /**
+     * Writes a text message, binary message or frame on the owning context.
+     *
+     * @param payload a {@link String}, {@link Buffer} or {@link WebSocketFrame}
+     * @param key     the coalescing key, may be null
+     */
+    void writePayload(@NonNull Object payload, @Nullable String key)
+    {
+        if (isOnContext())
+        {
+            deliver(payload, key);
+        }
+        else
+        {
+            context.runOnContext(v -> deliver(payload, key));
+        }
+    }
+
+    /**
+     * Collects a group broadcast into this socket's current batch, writing the batch when the
+     * group's coalescing window ends or its byte budget is reached.
+     *
+     * <p>A batch only ever holds messages of groups sharing the same options; a message for a
+     * group with other options, or any direct write, flushes the pending batch first so the
+     * socket's message order is kept.</p>
+     *
+     * @param message the message
+     * @param options the options of the group the message was broadcast to
+     */
+    void writeBatched(@NonNull String message, @NonNull WebSocketGroupOptions options)
+    {
+        if (context == null)
+        {
+            offer(message, null, encodedLength(message));
+            return;
+        }
+        if (!isOnContext())
+        {
+            context.runOnContext(v -> writeBatched(message, options));
+            return;
+        }
+        if (batchOptions != null && batchOptions != options)
+        {
+            flushBatch();
+        }
+        batchOptions = options;
+        batch.add(message);
+        batchBytes += encodedLength(message);
+        if (batchBytes >= options.getCoalesceMaxBytes())
+        {
+            flushBatch();
+        }
+        else if (batchTimer < 0)
+        {
+            batchTimer = context.owner()
+                                .setTimer(options.getCoalesceWindowMillis(), id -> {
+                                    batchTimer = -1;
+                                    flushBatch();
+                                });
+        }
+    }
+
+    /**
+     * Writes a message of a conflating group on the owning context.
+     *
+     * <p>While the socket is not writable only the newest queued message per key is kept,
+     * whatever the configured {@link WebSocketOverflowPolicy}, and the queue drains as the
+     * socket becomes writable again.</p>
+     *
+     * @param payload a {@link String}, {@link Buffer} or {@link WebSocketFrame}
+     * @param key     the conflation key
+     */
+    void writeConflated(@NonNull Object payload, @NonNull String key)
+    {
+        if (isOnContext())
+        {
+            deliver(payload, key, true);
+        }
+        else
+        {
+            context.runOnContext(v -> deliver(payload, key, true));
+        }
+    }
+
+    private void deliver(Object payload, @Nullable String key)
+    {
+        deliver(payload, key, false);
+    }
+
+    private void deliver(Object payload, @Nullable String key, boolean conflate)
+    {
+        if (!batch.isEmpty())
+        {
+            flushBatch();
+        }
+        offer(payload, key, sizeOf(payload), conflate);
+    }
+
+    private void flushBatch()
+    {
+        if (batchTimer >= 0)
+        {
+            context.owner()
+                   .cancelTimer(batchTimer);
+            batchTimer = -1;
+        }
+        int messages = batch.size();
+        if (messages == 0)
+        {
+            batchOptions = null;
+            return;
+        }
+        if (messages > 1 && batchOptions.isMergeAsJsonArray())
+        {
+            StringBuilder merged = new StringBuilder(batchBytes + messages + 1).append('[');
+            for (int i = 0; i < messages; i++)
+            {
+                if (i > 0)
+                {
+                    merged.append(',');
+                }
+                merged.append(batch.get(i));
+            }
+            String frame = merged.append(']')
+                                 .toString();
+            offer(frame, null, encodedLength(frame));
+            WebSocketStatistics.batchFlushed(messages, 1);
+        }
+        else
+        {
+            for (String message : batch)
+            {
+                offer(message, null, encodedLength(message));
+            }
+            WebSocketStatistics.batchFlushed(messages, messages);
+        }
+        batch.clear();
+        batchBytes = 0;
+        batchOptions = null;
+    }
+
+    private static int sizeOf(Object payload)
+    {
+        if (payload instanceof String message)
+        {
+            return encodedLength(message);
+        }
+        if (payload instanceof Buffer buffer)
+        {
+            return buffer.length();
+        }
+        return ((WebSocketFrame) payload).binaryData()
+                                         .length();
+    }
+
+    /**
+     * Returns the number of bytes a text message occupies on the wire, without encoding it.
+     *
+     * @param message the text message
+     * @return the UTF-8 encoded length
+     */
+    static int encodedLength(@NonNull String message)
+    {
+        int length = message.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++)
+        {
+            char c = message.charAt(i);
+            if (c >= 0x80)
+            {
+                if (c < 0x800)
+                {
+                    bytes++;
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(message.charAt(i + 1)))
+                {
+                    //a surrogate pair is two chars and four bytes
+                    bytes += 2;
+                    i++;
+                }
+                else
+                {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Records that this connection joined a group.
+     *
+     * <p>Memberships are kept as a small array of the group instances themselves, so a connection in
+     * a handful of groups costs a few references and teardown needs no lookups.</p>
+     *
+     * @param group the group joined
+     */
+    synchronized void joined(@NonNull WebSocketGroup group)
+    {
+        for (int i = 0; i < groupCount; i++)
+        {
+            if (groups[i] == group)
+            {
+                return;
+            }
+        }
+        if (groupCount == groups.length)
+        {
+            groups = Arrays.copyOf(groups, groupCount == 0 ? 2 : groupCount * 2);
+        }
+        groups[groupCount++] = group;
+    }
+
+    /**
+     * Records that this connection left a group.
+     *
+     * @param group the group left
+     */
+    synchronized void left(@NonNull WebSocketGroup group)
+    {
+        for (int i = 0; i < groupCount; i++)
+        {
+            if (groups[i] == group)
+            {
+                groups[i] = groups[--groupCount];
+                groups[groupCount] = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns all memberships of this connection.
+     *
+     * @return the groups the connection was a member of
+     */
+    synchronized WebSocketGroup[] clearGroups()
+    {
+        WebSocketGroup[] memberOf = Arrays.copyOf(groups, groupCount);
+        groups = NO_GROUPS;
+        groupCount = 0;
+        return memberOf;
+    }
+
+    /**
+     * Returns the names of the groups this connection is a member of
+     *
+     * @return a snapshot of the group names
+     */
+    public synchronized List<String> getGroupNames()
+    {
+        List<String> names = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++)
+        {
+            names.add(groups[i].getName());
+        }
+        return names;
+    }
+
+    /**
+     * Returns the EventBus consumer registered under this connection's identifier
+     *
+     * @return the consumer, or null when the connection is not addressable over the EventBus
+     */
+    @Nullable
+    MessageConsumer<Object> getConsumer()
+    {
+        return consumer;
+    }
+
+    void setConsumer(@Nullable MessageConsumer<Object> consumer)
+    {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Records inbound activity (a message or a pong) on this connection.
+     */
+    public void touch()
+    {
+        lastActivity = System.nanoTime();
+    }
+
+    /**
+     * Returns how long the connection has been without inbound activity
+     *
+     * @return the idle time in nanoseconds
+     */
+    public long getIdleNanos()
+    {
+        return System.nanoTime() - lastActivity;
+    }
+
+    /**
+     * Runs a task on the owning context of this connection.
+     *
+     * @param task the task to run
+     */
+    public void runOnContext(@NonNull Runnable task)
+    {
+        if (isOnContext())
+        {
+            task.run();
+        }
+        else
+        {
+            context.runOnContext(v -> task.run());
+        }
+    }
+
+    /**
+     * Queues an inbound message for serial processing, pausing the socket once
+     * {@link WebSocketServerOptions#getMaxInFlightPerConnection()} messages are outstanding.
+     *
+     * <p>Must be called on the owning context. Each task is subscribed only after the previous
+     * one has completed, so one connection's messages are handled in arrival order while other
+     * connections proceed independently.</p>
+     *
+     * @param task creates the processing pipeline for one message
+     */
+    void submitInbound(@NonNull Supplier<Uni<Void>> task)
+    {
+        inbound.addLast(task);
+        inFlight++;
+        if (!paused && inFlight >= VertxSocketHttpWebSocketConfigurator.getOptions()
+                                                                         .getMaxInFlightPerConnection())
+        {
+            paused = true;
+            socket.pause();
+        }
+        if (!processing)
+        {
+            processNextInbound();
+        }
+    }
+
+    /**
+     * Returns the number of inbound messages accepted but not yet handled
+     *
+     * @return the in-flight message count
+     */
+    public int getInFlightMessages()
+    {
+        return inFlight;
+    }
+
+    private void processNextInbound()
+    {
+        Supplier<Uni<Void>> task = inbound.pollFirst();
+        if (task == null)
+        {
+            processing = false;
+            return;
+        }
+        processing = true;
+        Uni<Void> pipeline;
+        try
+        {
+            pipeline = task.get();
+        }
+        catch (Throwable t)
+        {
+            log.error("WebSocket message processing failed", t);
+            completeInbound();
+            return;
+        }
+        pipeline.subscribe()
+                .with(v -> runOnContext(this::completeInbound),
+                      e -> {
+                          log.error("WebSocket message processing failed", e);
+                          runOnContext(this::completeInbound);
+                      });
+    }
+
+    private void completeInbound()
+    {
+        inFlight--;
+        if (paused && inFlight <= VertxSocketHttpWebSocketConfigurator.getOptions()
+                                                                      .getMaxInFlightPerConnection() / 2)
+        {
+            paused = false;
+            if (!socket.isClosed())
+            {
+                socket.resume();
+            }
+        }
+        processNextInbound();
+    }
+
+    /**
+     * Returns the number of messages held while the socket is not writable
+     *
+     * @return the queued message count
+     */
+    public int getQueuedMessages()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Returns the encoded size of the messages held while the socket is not writable
+     *
+     * @return the queued byte count
+     */
+    public long getQueuedBytes()
+    {
+        return pendingBytes;
+    }
+
+    private void offer(Object payload, @Nullable String key, int bytes)
+    {
+        offer(payload, key, bytes, false);
+    }
+
+    private void offer(Object payload, @Nullable String key, int bytes, boolean conflate)
+    {
+        if (socket.isClosed())
+        {
+            return;
+        }
+        if (pending.isEmpty() && !socket.writeQueueFull())
+        {
+            send(payload);
+            return;
+        }
+        enqueue(payload, key, bytes, conflate);
+    }
+
+    private void enqueue(Object payload, @Nullable String key, int bytes, boolean conflate)
+    {
+        WebSocketServerOptions options = VertxSocketHttpWebSocketConfigurator.getOptions();
+        WebSocketOverflowPolicy policy = options.getOverflowPolicy();
+        if (key != null && (conflate || policy == WebSocketOverflowPolicy.COALESCE_LATEST))
+        {
+            Pending existing = pendingByKey.get(key);
+            if (existing != null)
+            {
+                pendingBytes += bytes - existing.bytes;
+                existing.payload = payload;
+                existing.bytes = bytes;
+                if (conflate)
+                {
+                    WebSocketStatistics.conflated();
+                }
+                else
+                {
+                    WebSocketStatistics.overflow(WebSocketOverflowPolicy.COALESCE_LATEST);
+                }
+                return;
+            }
+        }
+        if (pending.size() >= options.getMaxQueuedMessages() || pendingBytes + bytes > options.getMaxQueuedBytes())
+        {
+            switch (policy)
+            {
+                case CLOSE ->
+                {
+                    WebSocketStatistics.overflow(WebSocketOverflowPolicy.CLOSE);
+                    log.debug("Closing slow web socket {} - outbound queue limit reached", id);
+                    clearPending();
+                    socket.close((short) 1008, "Outbound queue limit exceeded");
+                    return;
+                }
+                case DROP_OLDEST ->
+                {
+                    while (!pending.isEmpty()
+                            && (pending.size() >= options.getMaxQueuedMessages() || pendingBytes + bytes > options.getMaxQueuedBytes()))
+                    {
+                        removeHead();
+                        WebSocketStatistics.overflow(WebSocketOverflowPolicy.DROP_OLDEST);
+                    }
+                }
+                default ->
+                {
+                    WebSocketStatistics.overflow(WebSocketOverflowPolicy.DROP_NEWEST);
+                    return;
+                }
+            }
+        }
+        Pending entry = new Pending(payload, key, bytes);
+        pending.addLast(entry);
+        pendingBytes += bytes;
+        if (key != null)
+        {
+            pendingByKey.put(key, entry);
+        }
+        if (!drainHandlerSet)
+        {
+            drainHandlerSet = true;
+            socket.drainHandler(v -> drain());
+        }
+    }
+
+    private void drain()
+    {
+        while (!pending.isEmpty() && !socket.writeQueueFull() && !socket.isClosed())
+        {
+            send(removeHead().payload);
+        }
+    }
+
+    private Pending removeHead()
+    {
+        Pending head = pending.pollFirst();
+        pendingBytes -= head.bytes;
+        if (head.key != null)
+        {
+            pendingByKey.remove(head.key, head);
+        }
+        return head;
+    }
+
+    private void clearPending()
+    {
+        pending.clear();
+        pendingByKey.clear();
+        pendingBytes = 0;
+    }
+
+    private void send(Object payload)
+    {
+        if (payload instanceof WebSocketFrame frame)
+        {
+            socket.writeFrame(frame)
+                  .onFailure(e -> log.debug("Failed to write frame to web socket {}", id, e));
+        }
+        else if (payload instanceof Buffer buffer)
+        {
+            socket.writeBinaryMessage(buffer)
+                  .onFailure(e -> log.debug("Failed to write binary message to web socket {}", id, e));
+        }
+        else
+        {
+            socket.writeTextMessage((String) payload)
+                  .onFailure(e -> log.debug("Failed to write to web socket {}", id, e));
+        }
+        WebSocketMetrics[] metrics = GuicedWebSocketHandlers.metrics();
+        if (metrics.length != 0)
+        {
+            int bytes = sizeOf(payload);
+            for (WebSocketMetrics metric : metrics)
+            {
+                metric.frameOut(bytes);
+            }
+        }
+    }
+
+    /**
+     * A message held while the socket is not writable
+     */
+    private static final class Pending
+    {
+        private Object payload;
+        private final @Nullable String key;
+        private int bytes;
+
+        private Pending(Object payload, @Nullable String key, int bytes)
+        {
+            this.payload = payload;
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+}
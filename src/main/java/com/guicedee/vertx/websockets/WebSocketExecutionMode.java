@@ -0,0 +1,22 @@
+package com.guicedee.vertx.websockets;
+
+/**
+ * Where inbound WebSocket messages are handed to their listeners.
+ *
+ * @see WebSocketServerOptions#getExecutionMode()
+ */
+public enum WebSocketExecutionMode
+{
+    /**
+     * Run listeners inline on the socket's event loop; listeners must not block
+     */
+    EVENT_LOOP,
+    /**
+     * Run listeners on a shared Vert.x worker pool of {@link WebSocketServerOptions#getWorkerPoolSize()} threads
+     */
+    WORKER,
+    /**
+     * Run each message's listener on a new virtual thread
+     */
+    VIRTUAL_THREAD
+}
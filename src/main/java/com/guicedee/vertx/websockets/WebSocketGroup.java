@@ -0,0 +1,207 @@
+package com.guicedee.vertx.websockets;
+
+import io.vertx.core.Context;
+import lombok.Getter;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Membership registry for a single WebSocket group.
+ *
+ * <p>Members are sharded by the event-loop {@link Context} that owns their socket, and each
+ * shard is a concurrent map keyed by connection identifier. Joins and leaves are amortized
+ * O(1) and never copy the membership, and iteration walks the live maps without taking a
+ * snapshot (it is weakly consistent, the same as any {@link ConcurrentHashMap} view).</p>
+ *
+ * @see VertxSocketHttpWebSocketConfigurator#groupSockets
+ */
+public class WebSocketGroup
+{
+    /**
+     * The group name
+     */
+    @Getter
+    private final String name;
+    private final Map<Context, Map<String, WebSocketConnection>> shards = new ConcurrentHashMap<>();
+    /**
+     * Members registered without an owning context
+     */
+    private final Map<String, WebSocketConnection> unbound = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates a new empty group.
+     *
+     * @param name the group name
+     */
+    public WebSocketGroup(@NonNull String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Returns the outbound options of this group.
+     *
+     * <p>Read from {@link VertxSocketHttpWebSocketConfigurator#groupOptions} on each call, so options
+     * configured while the group exists, or while it is being created, apply to its next broadcast.</p>
+     *
+     * @return the group options, null when none are configured
+     */
+    public @Nullable WebSocketGroupOptions getOptions()
+    {
+        return VertxSocketHttpWebSocketConfigurator.groupOptions.get(name);
+    }
+
+    /**
+     * Adds a connection to the group.
+     *
+     * @param connection the connection to add
+     * @return true if the connection was not already a member
+     */
+    public boolean add(@NonNull WebSocketConnection connection)
+    {
+        boolean added = shardFor(connection).putIfAbsent(connection.getId(), connection) == null;
+        if (added)
+        {
+            size.incrementAndGet();
+        }
+        return added;
+    }
+
+    /**
+     * Removes a connection from the group.
+     *
+     * @param connection the connection to remove
+     * @return true if the connection was a member
+     */
+    public boolean remove(@NonNull WebSocketConnection connection)
+    {
+        Map<String, WebSocketConnection> shard = connection.getContext() == null ? unbound : shards.get(connection.getContext());
+        if (shard != null && shard.remove(connection.getId()) != null)
+        {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a connection from the group by its identifier.
+     *
+     * <p>Checks each shard in turn, so the cost is bounded by the number of event loops.</p>
+     *
+     * @param connectionId the connection identifier
+     * @return true if the connection was a member
+     */
+    public boolean remove(@NonNull String connectionId)
+    {
+        if (unbound.remove(connectionId) != null)
+        {
+            size.decrementAndGet();
+            return true;
+        }
+        for (Map<String, WebSocketConnection> shard : shards.values())
+        {
+            if (shard.remove(connectionId) != null)
+            {
+                size.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a connection is a member of this group
+     *
+     * @param connectionId the connection identifier
+     * @return true if the connection is a member
+     */
+    public boolean contains(@NonNull String connectionId)
+    {
+        if (unbound.containsKey(connectionId))
+        {
+            return true;
+        }
+        for (Map<String, WebSocketConnection> shard : shards.values())
+        {
+            if (shard.containsKey(connectionId))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of members
+     *
+     * @return the current member count
+     */
+    public int size()
+    {
+        return size.get();
+    }
+
+    /**
+     * Checks if the group has no members
+     *
+     * @return true when the group is empty
+     */
+    public boolean isEmpty()
+    {
+        return size.get() == 0;
+    }
+
+    /**
+     * Performs an action for each member without copying the membership.
+     *
+     * @param action the action to perform
+     */
+    public void forEach(@NonNull Consumer<WebSocketConnection> action)
+    {
+        unbound.values().forEach(action);
+        for (Map<String, WebSocketConnection> shard : shards.values())
+        {
+            for (WebSocketConnection connection : shard.values())
+            {
+                action.accept(connection);
+            }
+        }
+    }
+
+    /**
+     * Performs an action for each event-loop shard with the live members owned by that loop.
+     *
+     * <p>Members registered without a context are passed with a {@code null} context.</p>
+     *
+     * @param action receives the owning context and its members
+     */
+    public void forEachShard(@NonNull BiConsumer<@Nullable Context, Collection<WebSocketConnection>> action)
+    {
+        if (!unbound.isEmpty())
+        {
+            action.accept(null, unbound.values());
+        }
+        for (Map.Entry<Context, Map<String, WebSocketConnection>> shard : shards.entrySet())
+        {
+            if (!shard.getValue().isEmpty())
+            {
+                action.accept(shard.getKey(), shard.getValue().values());
+            }
+        }
+    }
+
+    private Map<String, WebSocketConnection> shardFor(WebSocketConnection connection)
+    {
+        Context context = connection.getContext();
+        return context == null ? unbound : shards.computeIfAbsent(context, k -> new ConcurrentHashMap<>());
+    }
+}
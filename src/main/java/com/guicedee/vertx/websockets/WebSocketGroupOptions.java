@@ -0,0 +1,115 @@
+package com.guicedee.vertx.websockets;
+
+import lombok.Data;
+
+/**
+ * Per-group outbound options.
+ *
+ * <p>Register options for a group with {@link VertxSocketHttpWebSocketConfigurator#configureGroup(String, WebSocketGroupOptions)};
+ * they apply to the group whenever it exists. Groups without options write every broadcast
+ * immediately.</p>
+ *
+ * <p>With a coalescing window each member socket collects the group's broadcasts for up to
+ * {@link #coalesceWindowMillis} milliseconds, or until {@link #coalesceMaxBytes} UTF-8 bytes
+ * are pending, and then writes them together in one event-loop task. With
+ * {@link #mergeAsJsonArray} the batch is sent as a single text frame holding a JSON array of
+ * the messages, which requires every message of the group to be a JSON value.</p>
+ *
+ * <p>A {@link #conflating} group suits state snapshots: each broadcast carries a key and a socket
+ * that cannot keep up only ever holds the newest message for each key.</p>
+ *
+ * <p>A group with a {@link #replayBufferSize} keeps its most recent text broadcasts so that a
+ * client resuming its session receives what it missed. Every text broadcast to such a group is
+ * sent wrapped in an envelope carrying its sequence number, which changes the group's wire format.</p>
+ *
+ * <p>A {@link #pattern} group is a wildcard subscription: its name is a topic pattern such as
+ * {@code prices.#} and it also receives every publish to a group name the pattern matches. Group
+ * names are never treated as patterns unless their options say so.</p>
+ *
+ * @see WebSocketStatistics#getBatchingRatio()
+ * @see WebSocketReplayBuffer
+ */
+@Data
+public class WebSocketGroupOptions
+{
+    /** How long broadcasts are collected per socket before they are written, 0 to write immediately. Default: 0 */
+    private int coalesceWindowMillis = 0;
+
+    /** Pending UTF-8 bytes per socket that flush a batch before its window ends. Default: 65536 */
+    private int coalesceMaxBytes = 65536;
+
+    /** Send each batch as one JSON-array text frame instead of one frame per message. Default: false */
+    private boolean mergeAsJsonArray = false;
+
+    /**
+     * Keep only the newest pending message per conflation key on each slow socket. Default: false
+     *
+     * <p>Applies to keyed broadcasts made with {@link GuicedWebSocket#broadcastMessage(String, String, String)}.
+     * Keyed broadcasts are written immediately and are not batched by the coalescing window.</p>
+     */
+    private boolean conflating = false;
+
+    /**
+     * Recent text broadcasts kept for replay to resuming clients, 0 to disable replay. Default: 0
+     *
+     * <p>Only applies while {@link WebSocketServerOptions#isResumeEnabled()} is on; otherwise broadcasts
+     * are neither buffered nor wrapped in envelopes.</p>
+     */
+    private int replayBufferSize = 0;
+
+    /** Max UTF-8 bytes held by the replay buffer; the oldest messages are evicted first. Default: 1048576 */
+    private int replayMaxBytes = 1024 * 1024;
+
+    /**
+     * Treat the group name as a wildcard topic pattern. Default: false
+     *
+     * <p>The name must have a {@code *} or {@code #} segment, see {@link WebSocketTopicMatcher}. Register
+     * the options before the group is joined, and on every node of a cluster.</p>
+     */
+    private boolean pattern = false;
+
+    /**
+     * Checks if broadcasts to the group are coalesced
+     *
+     * @return true when a coalescing window is configured
+     */
+    public boolean isCoalescing()
+    {
+        return coalesceWindowMillis > 0;
+    }
+
+    /**
+     * Checks if broadcasts to the group are kept for replay
+     *
+     * @return true when a replay buffer size is configured
+     */
+    public boolean isReplaying()
+    {
+        return replayBufferSize > 0;
+    }
+
+    /**
+     * Validates the configured options.
+     *
+     * @throws IllegalArgumentException if any option value is invalid
+     */
+    public void validate() throws IllegalArgumentException
+    {
+        if (coalesceWindowMillis < 0)
+        {
+            throw new IllegalArgumentException("coalesceWindowMillis must be >= 0");
+        }
+        if (coalesceMaxBytes <= 0)
+        {
+            throw new IllegalArgumentException("coalesceMaxBytes must be > 0");
+        }
+        if (replayBufferSize < 0)
+        {
+            throw new IllegalArgumentException("replayBufferSize must be >= 0");
+        }
+        if (replayMaxBytes <= 0)
+        {
+            throw new IllegalArgumentException("replayMaxBytes must be > 0");
+        }
+    }
+}
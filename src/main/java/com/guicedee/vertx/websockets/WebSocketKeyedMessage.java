@@ -0,0 +1,18 @@
+package com.guicedee.vertx.websockets;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * A group broadcast carrying a conflation key.
+ *
+ * <p>Delivered to a {@link WebSocketGroupOptions#isConflating() conflating} group, a socket that
+ * is not writable keeps only the newest pending message for each key. Other groups queue the
+ * message under its key as well, which matters only with {@link WebSocketOverflowPolicy#COALESCE_LATEST}.</p>
+ *
+ * @param key     the conflation key, scoped to the group
+ * @param message the message
+ * @see GuicedWebSocket#broadcastMessage(String, String, String)
+ */
+public record WebSocketKeyedMessage(@NonNull String key, @NonNull String message)
+{
+}
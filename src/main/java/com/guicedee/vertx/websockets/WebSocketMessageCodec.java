@@ -0,0 +1,57 @@
+package com.guicedee.vertx.websockets;
+
+import com.guicedee.client.services.websocket.WebSocketMessageReceiver;
+import io.vertx.core.buffer.Buffer;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Service provider interface for WebSocket message encodings.
+ *
+ * <p>Implementations are discovered with {@link java.util.ServiceLoader}. Each codec is offered to
+ * clients under its {@link #subProtocol()} through {@code Sec-WebSocket-Protocol}; the codec agreed
+ * during the handshake decodes the connection's binary messages, and applications use it to encode
+ * outbound payloads. Connections that do not negotiate a registered codec use
+ * {@link JsonWebSocketMessageCodec}. Text messages are always decoded as JSON.</p>
+ *
+ * <p>Decoded messages are routed by their action to the same listeners as text messages.</p>
+ *
+ * @see JacksonWebSocketMessageCodec
+ * @see GuicedWebSocketHandlers#codecs()
+ * @see WebSocketConnection#getCodec()
+ */
+public interface WebSocketMessageCodec
+{
+    /**
+     * Returns the subprotocol name this codec is negotiated under, e.g. {@code cbor} or {@code msgpack}
+     *
+     * @return the subprotocol name
+     */
+    String subProtocol();
+
+    /**
+     * Checks if encoded payloads should be written as binary frames
+     *
+     * @return true for binary encodings, false for text encodings
+     * @see GuicedWebSocket#sendEncodedMessage(Object)
+     */
+    default boolean isBinary()
+    {
+        return true;
+    }
+
+    /**
+     * Decodes an inbound message.
+     *
+     * @param message the raw message
+     * @return the decoded message
+     */
+    WebSocketMessageReceiver<?> decode(@NonNull Buffer message);
+
+    /**
+     * Encodes an outbound payload.
+     *
+     * @param value the payload
+     * @return the encoded bytes
+     */
+    Buffer encode(@NonNull Object value);
+}
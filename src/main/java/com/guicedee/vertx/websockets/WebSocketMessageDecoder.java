@@ -0,0 +1,122 @@
+package com.guicedee.vertx.websockets;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.client.services.websocket.WebSocketMessageReceiver;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allocation-light decoding of inbound WebSocket messages.
+ *
+ * <p>The {@code action} field is peeked with a streaming parser before anything is bound, so
+ * messages for unknown actions are dropped without a full parse. Known actions are bound with a
+ * cached {@link ObjectReader}: the default reader targets {@link WebSocketMessageReceiver}, and
+ * applications may register a subtype per action with {@link #registerActionType(String, Class)}.</p>
+ *
+ * @see GuicedWebSocket#receiveMessage(String)
+ */
+public final class WebSocketMessageDecoder
+{
+    private static final String ACTION_FIELD = "action";
+
+    private static volatile ObjectMapper objectMapper;
+    private static volatile ObjectReader defaultReader;
+    private static final Map<String, ObjectReader> actionReaders = new ConcurrentHashMap<>();
+
+    private WebSocketMessageDecoder()
+    {
+    }
+
+    /**
+     * Returns the shared object mapper, resolving it from the injector on first use
+     *
+     * @return the object mapper
+     */
+    public static ObjectMapper getObjectMapper()
+    {
+        ObjectMapper mapper = objectMapper;
+        if (mapper == null)
+        {
+            mapper = IGuiceContext.get(ObjectMapper.class);
+            objectMapper = mapper;
+        }
+        return mapper;
+    }
+
+    /**
+     * Binds messages for an action to a specific {@link WebSocketMessageReceiver} subtype.
+     *
+     * @param action the message action
+     * @param type   the type to bind the message to, a parameterized subtype such as {@code ChatMessage extends WebSocketMessageReceiver<Chat>}
+     */
+    public static void registerActionType(@NonNull String action, @NonNull Class<? extends WebSocketMessageReceiver<?>> type)
+    {
+        actionReaders.put(action, getObjectMapper().readerFor(type));
+    }
+
+    /**
+     * Reads the top-level {@code action} field of a JSON message without binding the payload.
+     *
+     * <p>Other top-level values, including nested {@code data} objects, are skipped by the tokenizer.</p>
+     *
+     * @param message the JSON message
+     * @return the action, or null if the message is not an object or has no textual action
+     */
+    public static @Nullable String peekAction(@NonNull String message)
+    {
+        try (JsonParser parser = getObjectMapper().createParser(message))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+            {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_OBJECT)
+            {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (ACTION_FIELD.equals(name))
+                {
+                    return value == JsonToken.VALUE_STRING ? parser.getValueAsString() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Binds a JSON message with the reader registered for its action.
+     *
+     * @param action  the action peeked from the message, null to bind with the default reader
+     * @param message the JSON message
+     * @return the bound message
+     */
+    public static WebSocketMessageReceiver<?> decode(@Nullable String action, @NonNull String message)
+    {
+        return readerFor(action).readValue(message);
+    }
+
+    private static ObjectReader readerFor(@Nullable String action)
+    {
+        ObjectReader reader = action == null ? null : actionReaders.get(action);
+        if (reader != null)
+        {
+            return reader;
+        }
+        reader = defaultReader;
+        if (reader == null)
+        {
+            reader = getObjectMapper().readerFor(WebSocketMessageReceiver.class);
+            defaultReader = reader;
+        }
+        return reader;
+    }
+}
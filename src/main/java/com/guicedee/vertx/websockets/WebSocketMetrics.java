@@ -0,0 +1,80 @@
+package com.guicedee.vertx.websockets;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Service provider interface for instrumenting the WebSocket subsystem.
+ *
+ * <p>Implementations are discovered with {@link java.util.ServiceLoader} and bridge the callbacks to
+ * a metrics library such as Micrometer. Every callback has a no-op default, so an implementation only
+ * overrides what it records. When no implementation is registered the hot paths skip the callbacks,
+ * including the timing calls, entirely.</p>
+ *
+ * <p>Gauges are pull based: read {@link VertxSocketHttpWebSocketConfigurator#getConnectionCount()},
+ * {@link VertxSocketHttpWebSocketConfigurator#getGroupSize(String)} and
+ * {@link VertxSocketHttpWebSocketConfigurator#getQueuedMessageCount()} from the gauge supplier.</p>
+ *
+ * <p>Callbacks run on event-loop threads and must not block.</p>
+ *
+ * @see GuicedWebSocketHandlers#metrics()
+ */
+public interface WebSocketMetrics
+{
+    /**
+     * A connection was accepted.
+     *
+     * @param connectionId the connection identifier
+     */
+    default void connectionOpened(@NonNull String connectionId)
+    {
+    }
+
+    /**
+     * A connection was closed or failed.
+     *
+     * @param connectionId the connection identifier
+     */
+    default void connectionClosed(@NonNull String connectionId)
+    {
+    }
+
+    /**
+     * An inbound frame was received.
+     *
+     * @param bytes the payload size in bytes, text counted UTF-8 encoded
+     */
+    default void frameIn(int bytes)
+    {
+    }
+
+    /**
+     * An outbound frame was written to a socket.
+     *
+     * @param bytes the payload size in bytes, text counted UTF-8 encoded
+     */
+    default void frameOut(int bytes)
+    {
+    }
+
+    /**
+     * An inbound message finished dispatching to its action listener.
+     *
+     * @param action  the message action, or null if the message had none
+     * @param nanos   the dispatch time from decode to completion of the listener
+     * @param success false if decoding or the listener failed
+     */
+    default void messageDispatched(String action, long nanos, boolean success)
+    {
+    }
+
+    /**
+     * A group broadcast was handed to the event loops owning its members.
+     *
+     * @param group      the group name
+     * @param recipients the number of members at fan-out time
+     * @param nanos      the fan-out time on the publishing thread
+     */
+    default void broadcast(@NonNull String group, int recipients, long nanos)
+    {
+    }
+}
@@ -0,0 +1,27 @@
+package com.guicedee.vertx.websockets;
+
+/**
+ * Policy applied when a connection's outbound queue reaches its configured limit.
+ *
+ * @see WebSocketServerOptions#getOverflowPolicy()
+ * @see WebSocketConnection
+ */
+public enum WebSocketOverflowPolicy
+{
+    /**
+     * Discard the oldest queued messages until the new message fits
+     */
+    DROP_OLDEST,
+    /**
+     * Discard the message being written
+     */
+    DROP_NEWEST,
+    /**
+     * Replace a queued message that carries the same key with the newer one; keyless messages are dropped once the queue is full
+     */
+    COALESCE_LATEST,
+    /**
+     * Close the connection with status 1008 (policy violation)
+     */
+    CLOSE
+}
@@ -0,0 +1,205 @@
+package com.guicedee.vertx.websockets;
+
+import io.vertx.core.json.JsonObject;
+import lombok.Getter;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded buffer of a group's most recent text broadcasts, kept for clients that resume their session.
+ *
+ * <p>Every buffered broadcast takes a sequence number from a single counter shared by all groups on
+ * this instance, and is sent to the group wrapped in an envelope:</p>
+ *
+ * <pre>{"seq":42,"group":"prices","message":"..."}</pre>
+ *
+ * <p>The envelope is the wire format of every text broadcast to a replay group, not only of replayed
+ * ones, so the group's clients must read the message out of it.</p>
+ *
+ * <p>A resuming client presents the highest sequence it has seen and is sent the buffered envelopes
+ * after it. The buffer holds at most {@link WebSocketGroupOptions#getReplayBufferSize()} messages and
+ * {@link WebSocketGroupOptions#getReplayMaxBytes()} UTF-8 bytes, evicting the oldest first, so its
+ * memory is bounded whatever the publish rate. Binary broadcasts are not buffered.</p>
+ *
+ * <p>A sequence number is taken and appended to the buffers under one lock shared by all buffers, so
+ * every buffer holds its messages in sequence order and a client that has seen a sequence number has
+ * not missed a lower one that is yet to be buffered.</p>
+ *
+ * <p>Sequence numbers are local to the instance; in a cluster a client must resume on the node it
+ * was connected to.</p>
+ *
+ * @see VertxSocketHttpWebSocketConfigurator#replayBuffers
+ */
+public class WebSocketReplayBuffer
+{
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final Object sequenceLock = new Object();
+
+    /**
+     * The group name
+     */
+    @Getter
+    private final String group;
+    private final int maxMessages;
+    private final int maxBytes;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private int bytes;
+    /**
+     * The highest sequence number that is no longer held
+     */
+    private long evictedThrough;
+
+    /**
+     * Creates an empty buffer sized from the group's options.
+     *
+     * @param group   the group name
+     * @param options the group options
+     */
+    public WebSocketReplayBuffer(@NonNull String group, @NonNull WebSocketGroupOptions options)
+    {
+        this.group = group;
+        this.maxMessages = options.getReplayBufferSize();
+        this.maxBytes = options.getReplayMaxBytes();
+        //nothing published before the buffer existed can be replayed
+        synchronized (sequenceLock)
+        {
+            this.evictedThrough = sequence.get();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the most recent buffered broadcast on this instance
+     *
+     * @return the last sequence number, 0 when nothing has been buffered
+     */
+    public static long getLastSequence()
+    {
+        return sequence.get();
+    }
+
+    /**
+     * Wraps a message in a replay envelope.
+     *
+     * @param seq     the sequence number
+     * @param group   the group the message was published to, null when published to several groups
+     * @param message the message
+     * @return the envelope as JSON text
+     */
+    public static String envelope(long seq, @Nullable String group, @NonNull String message)
+    {
+        JsonObject json = new JsonObject().put("seq", seq);
+        if (group != null)
+        {
+            json.put("group", group);
+        }
+        return json.put("message", message)
+                   .encode();
+    }
+
+    /**
+     * Numbers a message, buffers it and returns its envelope.
+     *
+     * @param message the message published to the group
+     * @return the envelope to write to the group's members
+     */
+    public String append(@NonNull String message)
+    {
+        synchronized (sequenceLock)
+        {
+            long seq = sequence.incrementAndGet();
+            String envelope = envelope(seq, group, message);
+            add(seq, envelope);
+            return envelope;
+        }
+    }
+
+    /**
+     * Numbers a message published to several groups at once and buffers it in each of their buffers
+     * under the one sequence number.
+     *
+     * @param buffers the buffers of the groups the message was published to
+     * @param message the message
+     * @return the envelope to write to the groups' members
+     */
+    static String appendAll(@NonNull Collection<WebSocketReplayBuffer> buffers, @NonNull String message)
+    {
+        synchronized (sequenceLock)
+        {
+            long seq = sequence.incrementAndGet();
+            String envelope = envelope(seq, null, message);
+            for (WebSocketReplayBuffer buffer : buffers)
+            {
+                buffer.add(seq, envelope);
+            }
+            return envelope;
+        }
+    }
+
+    private synchronized void add(long seq, @NonNull String envelope)
+    {
+        entries.addLast(new Entry(seq, envelope));
+        bytes += WebSocketConnection.encodedLength(envelope);
+        while (entries.size() > maxMessages || (bytes > maxBytes && entries.size() > 1))
+        {
+            Entry evicted = entries.removeFirst();
+            bytes -= WebSocketConnection.encodedLength(evicted.envelope());
+            evictedThrough = Math.max(evictedThrough, evicted.sequence());
+        }
+    }
+
+    /**
+     * Returns the buffered envelopes after a sequence number.
+     *
+     * @param lastSequence the highest sequence number the client has seen
+     * @return the newer entries in buffer order
+     */
+    public synchronized List<Entry> since(long lastSequence)
+    {
+        List<Entry> missed = new ArrayList<>();
+        for (Entry entry : entries)
+        {
+            if (entry.sequence() > lastSequence)
+            {
+                missed.add(entry);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * Checks if every message after a sequence number is still buffered
+     *
+     * @param lastSequence the highest sequence number the client has seen
+     * @return false when messages after it have already been evicted
+     */
+    public synchronized boolean covers(long lastSequence)
+    {
+        return lastSequence >= evictedThrough;
+    }
+
+    /**
+     * Returns the number of buffered messages
+     *
+     * @return the buffered message count
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * A buffered broadcast.
+     *
+     * @param sequence the sequence number
+     * @param envelope the envelope as sent to the group
+     */
+    public record Entry(long sequence, @NonNull String envelope)
+    {
+    }
+}
@@ -14,6 +14,8 @@ import org.jspecify.annotations.NonNull;
 @Data
 @Singleton
 public class WebSocketServerOptions {
+
+    private static final int DEFAULT_MAX_MESSAGE_SIZE = 262144;
     
     /**
      * Enable per-message WebSocket compression (RFC 7692 / permessage-deflate). Default: false.
@@ -34,6 +36,14 @@ public class WebSocketServerOptions {
     /** Max frame size in bytes. Default: 65536 */
     private int maxFrameSize = 65536;
     
+    /**
+     * Max reassembled message size in bytes, 0 to derive it. Default: 0
+     *
+     * <p>When not set, the limit is 262144 bytes or {@link #maxFrameSize}, whichever is larger, so a
+     * configuration that only raises the frame size keeps accepting single-frame messages.</p>
+     */
+    private int maxMessageSize = 0;
+
     /** Max chunk size in bytes. Default: 65536 */
     private int maxChunkSize = 65536;
     
@@ -43,12 +53,94 @@ public class WebSocketServerOptions {
     /** Enable WebSocket write handlers. Default: true */
     private boolean registerWebSocketWriteHandlers = true;
     
-    /** Connection idle timeout in seconds. Default: 300 */
+    /**
+     * Connection idle timeout in seconds. Default: 300
+     *
+     * <p>Connections without inbound activity for half of this time are pinged, and closed once
+     * the full timeout passes without a message or pong.</p>
+     */
     private int idleTimeoutSeconds = 300;
     
-    /** Max WebSocket connections per group. Default: 10000 */
+    /** Max WebSocket connections per application group; joins past this size are rejected. Default: 10000 */
     private int maxGroupSize = 10000;
+
+    /**
+     * Route group broadcasts across a clustered Vert.x event bus. Default: false
+     *
+     * <p>Each node delivers to its own members directly and sends one message per group to each
+     * remote node that has members of that group.</p>
+     *
+     * @see WebSocketClusterRouter
+     */
+    private boolean clustered = false;
+
+    /**
+     * Seconds between cluster heartbeats. Default: 5
+     *
+     * <p>A node that misses three heartbeats is treated as gone and its groups are no longer routed to.</p>
+     */
+    private int clusterHeartbeatSeconds = 5;
+
+    /**
+     * Register an EventBus consumer under each connection's identifier. Default: false
+     *
+     * <p>Messages addressed through this module are written to a connection on this node directly, so
+     * no consumer is needed for them. Turn this on if other verticles reach connections with
+     * {@code eventBus().send(textHandlerID, message)}; it costs one consumer per connection.
+     * Consumers are always registered when {@link #clustered} is enabled.</p>
+     */
+    private boolean connectionConsumers = false;
+
+    /** Max messages queued per connection while its socket is not writable. Default: 1024 */
+    private int maxQueuedMessages = 1024;
+
+    /** Max bytes queued per connection while its socket is not writable. Default: 1048576 */
+    private long maxQueuedBytes = 1024 * 1024;
+
+    /** Policy applied when a connection's outbound queue is full. Default: DROP_NEWEST */
+    private @NonNull WebSocketOverflowPolicy overflowPolicy = WebSocketOverflowPolicy.DROP_NEWEST;
+
+    /**
+     * Where inbound messages are handed to their listeners. Default: EVENT_LOOP
+     *
+     * <p>In {@code WORKER} and {@code VIRTUAL_THREAD} mode messages of one connection are processed
+     * one at a time in arrival order, while different connections are processed in parallel.</p>
+     */
+    private @NonNull WebSocketExecutionMode executionMode = WebSocketExecutionMode.EVENT_LOOP;
+
+    /**
+     * Max inbound messages accepted but not yet handled per connection off the event loop. Default: 64
+     *
+     * <p>The socket is paused once this many messages are outstanding and resumed when it drops below half.</p>
+     */
+    private int maxInFlightPerConnection = 64;
+
+    /** Worker pool size used in {@code WORKER} execution mode. Default: 20 */
+    private int workerPoolSize = 20;
+
+    /**
+     * Issue a session token to each connection so that a reconnecting client can resume. Default: false
+     *
+     * <p>A new connection is sent {@code {"type":"session","token":...,"seq":...}}. Reconnecting with
+     * {@code ?resumeToken=<token>&lastSeq=<seq>} on the upgrade URI restores the group memberships of the
+     * closed connection and replays the messages it missed from groups with a replay buffer.</p>
+     *
+     * @see WebSocketGroupOptions#getReplayBufferSize()
+     */
+    private boolean resumeEnabled = false;
+
+    /** How long the memberships of a closed connection are kept for resuming. Default: 60 */
+    private int sessionRetentionSeconds = 60;
     
+    /**
+     * Returns the max reassembled message size in bytes, derived from {@link #maxFrameSize} when not set
+     *
+     * @return the configured size, or the larger of 262144 and the frame size
+     */
+    public int getMaxMessageSize() {
+        return maxMessageSize > 0 ? maxMessageSize : Math.max(DEFAULT_MAX_MESSAGE_SIZE, maxFrameSize);
+    }
+
     /**
      * Validates the configured options.
      * 
@@ -61,6 +153,12 @@ public class WebSocketServerOptions {
         if (maxFrameSize <= 0) {
             throw new IllegalArgumentException("maxFrameSize must be > 0");
         }
+        if (maxMessageSize < 0) {
+            throw new IllegalArgumentException("maxMessageSize must be >= 0");
+        }
+        if (maxMessageSize > 0 && maxMessageSize < maxFrameSize) {
+            throw new IllegalArgumentException("maxMessageSize must be >= maxFrameSize");
+        }
         if (compressionLevel < 0 || compressionLevel > 9) {
             throw new IllegalArgumentException("compressionLevel must be 0-9");
         }
@@ -70,5 +168,29 @@ public class WebSocketServerOptions {
         if (idleTimeoutSeconds <= 0) {
             throw new IllegalArgumentException("idleTimeoutSeconds must be > 0");
         }
+        if (maxQueuedMessages <= 0) {
+            throw new IllegalArgumentException("maxQueuedMessages must be > 0");
+        }
+        if (maxQueuedBytes <= 0) {
+            throw new IllegalArgumentException("maxQueuedBytes must be > 0");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("overflowPolicy must be set");
+        }
+        if (executionMode == null) {
+            throw new IllegalArgumentException("executionMode must be set");
+        }
+        if (maxInFlightPerConnection <= 0) {
+            throw new IllegalArgumentException("maxInFlightPerConnection must be > 0");
+        }
+        if (workerPoolSize <= 0) {
+            throw new IllegalArgumentException("workerPoolSize must be > 0");
+        }
+        if (clusterHeartbeatSeconds <= 0) {
+            throw new IllegalArgumentException("clusterHeartbeatSeconds must be > 0");
+        }
+        if (sessionRetentionSeconds <= 0) {
+            throw new IllegalArgumentException("sessionRetentionSeconds must be > 0");
+        }
     }
 }
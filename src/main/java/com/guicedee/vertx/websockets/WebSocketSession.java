@@ -0,0 +1,29 @@
+package com.guicedee.vertx.websockets;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.List;
+
+/**
+ * The group memberships of a closed connection, kept so that a reconnecting client can resume them.
+ *
+ * <p>Sessions are retained for {@link WebSocketServerOptions#getSessionRetentionSeconds()} after the
+ * connection closes and are consumed by the first resume that presents their token.</p>
+ *
+ * @param token          the session token issued to the connection
+ * @param groups         the application groups the connection was a member of
+ * @param expiresAtNanos the {@link System#nanoTime()} after which the session can no longer be resumed
+ * @see VertxSocketHttpWebSocketConfigurator#sessions
+ */
+public record WebSocketSession(@NonNull String token, @NonNull List<String> groups, long expiresAtNanos)
+{
+    /**
+     * Checks if the retention period has passed
+     *
+     * @return true when the session can no longer be resumed
+     */
+    public boolean isExpired()
+    {
+        return System.nanoTime() - expiresAtNanos > 0;
+    }
+}
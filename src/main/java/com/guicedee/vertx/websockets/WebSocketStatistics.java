@@ -0,0 +1,176 @@
+package com.guicedee.vertx.websockets;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters for the WebSocket subsystem.
+ *
+ * <p>Counters are {@link LongAdder}s so that event loops incrementing them concurrently do not contend.</p>
+ */
+public final class WebSocketStatistics
+{
+    private static final Map<WebSocketOverflowPolicy, LongAdder> overflows = new EnumMap<>(WebSocketOverflowPolicy.class);
+    private static final LongAdder idlePings = new LongAdder();
+    private static final LongAdder idleClosed = new LongAdder();
+    private static final LongAdder groupJoinsRejected = new LongAdder();
+    private static final LongAdder batchedMessages = new LongAdder();
+    private static final LongAdder batchedFrames = new LongAdder();
+    private static final LongAdder conflated = new LongAdder();
+
+    static
+    {
+        for (WebSocketOverflowPolicy policy : WebSocketOverflowPolicy.values())
+        {
+            overflows.put(policy, new LongAdder());
+        }
+    }
+
+    private WebSocketStatistics()
+    {
+    }
+
+    /**
+     * Records that an outbound overflow policy was applied.
+     *
+     * @param policy the policy that fired
+     */
+    static void overflow(@NonNull WebSocketOverflowPolicy policy)
+    {
+        overflows.get(policy)
+                 .increment();
+    }
+
+    /**
+     * Returns how often an outbound overflow policy has fired.
+     *
+     * @param policy the policy
+     * @return the number of times the policy was applied
+     */
+    public static long getOverflowCount(@NonNull WebSocketOverflowPolicy policy)
+    {
+        return overflows.get(policy)
+                        .sum();
+    }
+
+    static void idlePing()
+    {
+        idlePings.increment();
+    }
+
+    static void idleClosed()
+    {
+        idleClosed.increment();
+    }
+
+    static void groupJoinRejected()
+    {
+        groupJoinsRejected.increment();
+    }
+
+    /**
+     * Records a flushed outbound batch.
+     *
+     * @param messages the messages in the batch
+     * @param frames   the frames they were written as
+     */
+    static void batchFlushed(int messages, int frames)
+    {
+        batchedMessages.add(messages);
+        batchedFrames.add(frames);
+    }
+
+    static void conflated()
+    {
+        conflated.increment();
+    }
+
+    /**
+     * Returns the number of queued messages of conflating groups replaced by a newer message with the same key
+     *
+     * @return the conflated message count
+     */
+    public static long getConflated()
+    {
+        return conflated.sum();
+    }
+
+    /**
+     * Returns the number of messages written through coalesced group batches
+     *
+     * @return the batched message count
+     */
+    public static long getBatchedMessages()
+    {
+        return batchedMessages.sum();
+    }
+
+    /**
+     * Returns the number of frames coalesced group batches were written as
+     *
+     * @return the batched frame count
+     */
+    public static long getBatchedFrames()
+    {
+        return batchedFrames.sum();
+    }
+
+    /**
+     * Returns the average number of messages carried per frame by coalesced group batches
+     *
+     * @return the batching ratio, or 1 when nothing has been batched
+     */
+    public static double getBatchingRatio()
+    {
+        long frames = batchedFrames.sum();
+        return frames == 0 ? 1 : (double) batchedMessages.sum() / frames;
+    }
+
+    /**
+     * Returns the number of keep-alive pings sent to idle connections
+     *
+     * @return the ping count
+     */
+    public static long getIdlePings()
+    {
+        return idlePings.sum();
+    }
+
+    /**
+     * Returns the number of connections closed for exceeding the idle timeout
+     *
+     * @return the idle close count
+     */
+    public static long getIdleClosed()
+    {
+        return idleClosed.sum();
+    }
+
+    /**
+     * Returns the number of group joins rejected because the group was at its maximum size
+     *
+     * @return the rejected join count
+     */
+    public static long getGroupJoinsRejected()
+    {
+        return groupJoinsRejected.sum();
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public static void reset()
+    {
+        overflows.values()
+                 .forEach(LongAdder::reset);
+        idlePings.reset();
+        idleClosed.reset();
+        groupJoinsRejected.reset();
+        batchedMessages.reset();
+        batchedFrames.reset();
+        conflated.reset();
+    }
+}
@@ -0,0 +1,236 @@
+package com.guicedee.vertx.websockets;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trie of wildcard topic patterns.
+ *
+ * <p>Topics are dot-separated, e.g. {@code prices.eu.gbp}. In a pattern {@code *} matches exactly one
+ * segment and {@code #} matches zero or more segments, so {@code prices.eu.*} and {@code prices.#}
+ * both match {@code prices.eu.gbp}. Resolving a topic walks the trie one segment at a time, so the
+ * cost grows with the topic depth rather than with the number of patterns.</p>
+ *
+ * <p>Resolved matches are cached per topic. The cache is cleared whenever a pattern is added or
+ * removed, and a lookup that raced with a change is not cached. Lookups never lock; changes are
+ * serialized.</p>
+ *
+ * @see VertxSocketHttpWebSocketConfigurator#getTopicMatcher()
+ */
+public class WebSocketTopicMatcher
+{
+    /**
+     * Matches exactly one topic segment
+     */
+    public static final String SINGLE_WILDCARD = "*";
+    /**
+     * Matches zero or more topic segments
+     */
+    public static final String MULTI_WILDCARD = "#";
+
+    private static final int MAX_CACHED_TOPICS = 10_000;
+
+    private final Node root = new Node();
+    private final Map<String, List<String>> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile int patterns;
+
+    /**
+     * Checks if a group name is a wildcard pattern
+     *
+     * @param topic the group name
+     * @return true when any segment is {@code *} or {@code #}
+     */
+    public static boolean isPattern(@NonNull String topic)
+    {
+        if (topic.indexOf('*') < 0 && topic.indexOf('#') < 0)
+        {
+            return false;
+        }
+        for (String segment : topic.split("\\.", -1))
+        {
+            if (SINGLE_WILDCARD.equals(segment) || MULTI_WILDCARD.equals(segment))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a pattern.
+     *
+     * @param pattern the pattern
+     * @return true if the pattern was not registered yet
+     */
+    public synchronized boolean add(@NonNull String pattern)
+    {
+        Node node = root;
+        for (String segment : pattern.split("\\.", -1))
+        {
+            node = node.children.computeIfAbsent(segment, k -> new Node());
+        }
+        if (node.pattern != null)
+        {
+            return false;
+        }
+        node.pattern = pattern;
+        patterns++;
+        invalidate();
+        return true;
+    }
+
+    /**
+     * Removes a pattern, pruning the branches it leaves empty.
+     *
+     * @param pattern the pattern
+     * @return true if the pattern was registered
+     */
+    public synchronized boolean remove(@NonNull String pattern)
+    {
+        String[] segments = pattern.split("\\.", -1);
+        Node[] path = new Node[segments.length + 1];
+        path[0] = root;
+        for (int i = 0; i < segments.length; i++)
+        {
+            path[i + 1] = path[i].children.get(segments[i]);
+            if (path[i + 1] == null)
+            {
+                return false;
+            }
+        }
+        Node leaf = path[segments.length];
+        if (leaf.pattern == null)
+        {
+            return false;
+        }
+        leaf.pattern = null;
+        patterns--;
+        for (int i = segments.length; i > 0 && path[i].pattern == null && path[i].children.isEmpty(); i--)
+        {
+            path[i - 1].children.remove(segments[i - 1]);
+        }
+        invalidate();
+        return true;
+    }
+
+    /**
+     * Returns the registered patterns that match a topic.
+     *
+     * @param topic the published topic
+     * @return the matching patterns in no particular order, empty when none match
+     */
+    public List<String> match(@NonNull String topic)
+    {
+        if (patterns == 0)
+        {
+            return List.of();
+        }
+        List<String> cached = cache.get(topic);
+        if (cached != null)
+        {
+            return cached;
+        }
+        long before = generation.get();
+        Set<String> found = new LinkedHashSet<>();
+        collect(root, topic.split("\\.", -1), 0, found);
+        List<String> matches = found.isEmpty() ? List.of() : List.copyOf(found);
+        if (generation.get() == before)
+        {
+            if (cache.size() >= MAX_CACHED_TOPICS)
+            {
+                cache.clear();
+            }
+            cache.put(topic, matches);
+            //a change that cleared the cache between the check and the put must not leave this entry behind
+            if (generation.get() != before)
+            {
+                cache.remove(topic, matches);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks if no patterns are registered
+     *
+     * @return true when empty
+     */
+    public boolean isEmpty()
+    {
+        return patterns == 0;
+    }
+
+    private void invalidate()
+    {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private static void collect(Node node, String[] segments, int index, Set<String> found)
+    {
+        Node multi = node.children.get(MULTI_WILDCARD);
+        if (multi != null)
+        {
+            for (int i = index; i <= segments.length; i++)
+            {
+                collect(multi, segments, i, found);
+            }
+        }
+        if (index == segments.length)
+        {
+            if (node.pattern != null)
+            {
+                found.add(node.pattern);
+            }
+            return;
+        }
+        Node exact = node.children.get(segments[index]);
+        if (exact != null)
+        {
+            collect(exact, segments, index + 1, found);
+        }
+        Node single = node.children.get(SINGLE_WILDCARD);
+        if (single != null && single != exact)
+        {
+            collect(single, segments, index + 1, found);
+        }
+    }
+
+    /**
+     * Returns the registered patterns
+     *
+     * @return a snapshot of the patterns
+     */
+    public synchronized List<String> getPatterns()
+    {
+        List<String> all = new ArrayList<>(patterns);
+        gather(root, all);
+        return all;
+    }
+
+    private static void gather(Node node, List<String> out)
+    {
+        if (node.pattern != null)
+        {
+            out.add(node.pattern);
+        }
+        for (Node child : node.children.values())
+        {
+            gather(child, out);
+        }
+    }
+
+    private static final class Node
+    {
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private volatile String pattern;
+    }
+}
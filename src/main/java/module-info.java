@@ -1,5 +1,6 @@
 import com.guicedee.client.services.lifecycle.IGuiceModule;
 import com.guicedee.client.services.lifecycle.IGuicePostStartup;
+import com.guicedee.client.services.lifecycle.IGuicePreDestroy;
 import com.guicedee.client.services.lifecycle.IOnCallScopeEnter;
 import com.guicedee.client.services.lifecycle.IOnCallScopeExit;
 import com.guicedee.client.services.websocket.GuicedWebSocketOnAddToGroup;
@@ -23,6 +24,7 @@ module com.guicedee.vertx.sockets {
     requires static lombok;
 
     provides IGuicePostStartup with VertxSocketHttpWebSocketConfigurator;
+    provides IGuicePreDestroy with VertxSocketHttpWebSocketConfigurator;
     provides VertxHttpServerConfigurator with VertxSocketHttpWebSocketConfigurator;
     provides IGuiceModule with VertxWebSocketsModule;
     provides VertxHttpServerOptionsConfigurator with VertxSocketHttpWebSocketConfigurator;
@@ -33,4 +35,6 @@ module com.guicedee.vertx.sockets {
     uses GuicedWebSocketOnAddToGroup;
     uses GuicedWebSocketOnRemoveFromGroup;
     uses GuicedWebSocketOnPublish;
+    uses WebSocketMetrics;
+    uses WebSocketMessageCodec;
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.vertx.websockets.WebSocketClusterRouter;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Several cluster routers sharing one event bus, each standing in for a node of a cluster.
+ */
+class ClusterRouterTest
+{
+    private static final long HEARTBEAT_MILLIS = 100;
+
+    private Vertx vertx;
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void start()
+    {
+        vertx = Vertx.vertx();
+    }
+
+    @AfterEach
+    void stop() throws Exception
+    {
+        for (Node node : nodes)
+        {
+            node.router.stop();
+        }
+        WebSocketTestServer.await(vertx.close());
+    }
+
+    @Test
+    void broadcastReachesOnlyInterestedNodesOnce() throws Exception
+    {
+        Node a = node();
+        Node b = node();
+        Node c = node();
+        awaitTrue(() -> a.router.getKnownNodes()
+                                .containsAll(Set.of(b.id(), c.id())));
+
+        b.join("room");
+        awaitTrue(() -> a.router.getInterestedNodes("room")
+                                .equals(Set.of(b.id())));
+        a.router.broadcast("room", "hello");
+
+        awaitTrue(() -> b.delivered.contains("room:hello"));
+        assertEquals(List.of("room:hello"), a.delivered, "local members are written directly");
+        Thread.sleep(HEARTBEAT_MILLIS);
+        assertEquals(List.of("room:hello"), b.delivered, "an interested node receives the broadcast once");
+        assertTrue(c.delivered.isEmpty(), "a node without members receives nothing");
+    }
+
+    @Test
+    void stoppedNodeIsWithdrawnImmediately() throws Exception
+    {
+        Node a = node();
+        Node b = node();
+        b.join("room");
+        awaitTrue(() -> a.router.getInterestedNodes("room")
+                                .contains(b.id()));
+
+        b.router.stop();
+        nodes.remove(b);
+        awaitTrue(() -> a.router.getInterestedNodes("room")
+                                .isEmpty() && !a.router.getKnownNodes()
+                                                       .contains(b.id()));
+    }
+
+    @Test
+    void silentNodeExpires() throws Exception
+    {
+        Node a = node();
+        //a node that announces a group and then crashes without saying goodbye
+        vertx.eventBus()
+             .publish(WebSocketClusterRouter.INTEREST_ADDRESS, new JsonObject().put("op", "join")
+                                                                               .put("node", "ghost")
+                                                                               .put("group", "room"));
+        awaitTrue(() -> a.router.getInterestedNodes("room")
+                                .contains("ghost"));
+
+        long started = System.nanoTime();
+        awaitTrue(() -> a.router.getInterestedNodes("room")
+                                .isEmpty());
+        assertFalse(a.router.getKnownNodes()
+                            .contains("ghost"));
+        assertTrue(System.nanoTime() - started >= 2 * HEARTBEAT_MILLIS * 1_000_000L, "expired before missing its heartbeats");
+    }
+
+    @Test
+    void unknownNodeIsAskedForItsGroups() throws Exception
+    {
+        Node a = node();
+        //a node that a was never told about, e.g. one expired during a partition, answers the sync request
+        vertx.eventBus()
+             .consumer(WebSocketClusterRouter.NODE_ADDRESS_PREFIX + "returning", message -> {
+                 if ("sync".equals(message.headers()
+                                          .get("op")))
+                 {
+                     vertx.eventBus()
+                          .send(WebSocketClusterRouter.NODE_ADDRESS_PREFIX + message.body(), "room",
+                                  new DeliveryOptions().addHeader("op", "join")
+                                                       .addHeader("node", "returning"));
+                 }
+             });
+        vertx.eventBus()
+             .publish(WebSocketClusterRouter.INTEREST_ADDRESS, new JsonObject().put("op", "heartbeat")
+                                                                               .put("node", "returning"));
+
+        awaitTrue(() -> a.router.getInterestedNodes("room")
+                                .contains("returning"));
+    }
+
+    @Test
+    void lostAnnouncementsAreRepairedByTheHeartbeatDigest() throws Exception
+    {
+        Node a = node();
+        Node b = node();
+        b.join("room");
+        awaitTrue(() -> a.router.getInterestedNodes("room")
+                                .contains(b.id()));
+
+        //b's groups change without the join and leave announcements reaching a
+        b.groups.remove("room");
+        b.groups.add("lobby");
+
+        awaitTrue(() -> a.router.getInterestedNodes("lobby")
+                                .contains(b.id()) && a.router.getInterestedNodes("room")
+                                                             .isEmpty());
+        a.router.broadcast("lobby", "hello");
+        awaitTrue(() -> b.delivered.contains("lobby:hello"));
+    }
+
+    private Node node()
+    {
+        Node node = new Node();
+        nodes.add(node);
+        return node;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + WebSocketTestServer.TIMEOUT_SECONDS * 1000;
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A router with its own local groups, recording what it delivers locally
+     */
+    private final class Node
+    {
+        private final Set<String> groups = ConcurrentHashMap.newKeySet();
+        private final List<String> delivered = new CopyOnWriteArrayList<>();
+        private final WebSocketClusterRouter router;
+
+        private Node()
+        {
+            router = new WebSocketClusterRouter(vertx, (group, message) -> delivered.add(group + ":" + message),
+                    (targets, message) -> delivered.add(String.join(",", targets) + ":" + message),
+                    () -> List.copyOf(groups), HEARTBEAT_MILLIS).start();
+        }
+
+        private String id()
+        {
+            return router.getNodeId();
+        }
+
+        private void join(String group)
+        {
+            groups.add(group);
+            router.localGroupJoined(group);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.vertx.tests.websockets.WebSocketTestServer.TestClient;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import io.vertx.core.http.ServerWebSocket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.guicedee.client.services.websocket.IGuicedWebSocket.EveryoneGroup;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Group joins only ever use a connection registered when its socket was accepted; unknown and
+ * closed sockets are ignored rather than given a fresh connection. Accepting a socket registers it
+ * in {@code Everyone} and closing it releases every group it joined.
+ */
+class ConnectionLookupTest
+{
+    private WebSocketTestServer server;
+
+    @BeforeEach
+    void start() throws Exception
+    {
+        server = WebSocketTestServer.start(1);
+    }
+
+    @AfterEach
+    void stop() throws Exception
+    {
+        server.close();
+    }
+
+    @Test
+    void registeredSocketJoins() throws Exception
+    {
+        TestClient client = server.connect();
+        VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), "room", server.socket(client));
+        assertSame(server.connection(client), VertxSocketHttpWebSocketConfigurator.connectionFor(server.socket(client)));
+        assertEquals(1, VertxSocketHttpWebSocketConfigurator.getGroupSize("room"));
+    }
+
+    @Test
+    void acceptedSocketIsRegisteredInEveryone() throws Exception
+    {
+        TestClient client = server.connect();
+        WebSocketConnection connection = server.connection(client);
+
+        assertNotNull(connection);
+        assertEquals(List.of(EveryoneGroup), connection.getGroupNames());
+        assertEquals(1, VertxSocketHttpWebSocketConfigurator.getGroupSize(EveryoneGroup));
+        assertFalse(VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey(client.id()),
+                "no group of one is created for the connection id");
+    }
+
+    @Test
+    void closingTheClientReleasesTheConnectionAndItsGroups() throws Exception
+    {
+        TestClient client = server.connect();
+        TestClient other = server.connect();
+        VertxSocketHttpWebSocketConfigurator.addToGroups(List.of("a", "b"), server.socket(client));
+        VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), "b", server.socket(other));
+
+        client.close();
+        awaitReleased(client);
+
+        assertFalse(VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey("a"), "a was not reclaimed");
+        assertEquals(1, VertxSocketHttpWebSocketConfigurator.getGroupSize("b"));
+        assertEquals(1, VertxSocketHttpWebSocketConfigurator.getGroupSize(EveryoneGroup));
+        assertEquals(2, VertxSocketHttpWebSocketConfigurator.getGroupConsumerCount(), "b and Everyone");
+        assertEquals(List.of(), VertxSocketHttpWebSocketConfigurator.getOrphanedRegistrations());
+    }
+
+    @Test
+    void unknownSocketIsIgnored() throws Exception
+    {
+        TestClient client = server.connect();
+        ServerWebSocket socket = server.socket(client);
+        VertxSocketHttpWebSocketConfigurator.connections.remove(client.id());
+
+        assertNull(VertxSocketHttpWebSocketConfigurator.connectionFor(socket));
+        VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), "room", socket);
+        VertxSocketHttpWebSocketConfigurator.addToGroups(List.of("a", "b"), socket);
+
+        assertFalse(VertxSocketHttpWebSocketConfigurator.connections.containsKey(client.id()));
+        assertFalse(VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey("room"));
+        assertFalse(VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey("a"));
+        //only Everyone, which the accepted socket joined
+        assertEquals(1, VertxSocketHttpWebSocketConfigurator.getGroupConsumerCount());
+    }
+
+    @Test
+    void closedSocketIsIgnored() throws Exception
+    {
+        TestClient client = server.connect();
+        ServerWebSocket socket = server.socket(client);
+        client.close();
+        awaitReleased(client);
+        assertTrue(socket.isClosed());
+
+        assertNull(VertxSocketHttpWebSocketConfigurator.connectionFor(socket));
+        VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), "room", socket);
+        VertxSocketHttpWebSocketConfigurator.addToGroups(List.of("a", "b"), socket);
+
+        assertFalse(VertxSocketHttpWebSocketConfigurator.connections.containsKey(client.id()));
+        assertFalse(VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey("room"));
+        assertFalse(VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey("a"));
+        //only Everyone, which the accepted socket joined
+        assertEquals(1, VertxSocketHttpWebSocketConfigurator.getGroupConsumerCount());
+    }
+
+    private static void awaitReleased(TestClient client) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + WebSocketTestServer.TIMEOUT_SECONDS * 1000;
+        while (VertxSocketHttpWebSocketConfigurator.connections.containsKey(client.id()))
+        {
+            assertTrue(System.currentTimeMillis() < deadline, "the server never released the closed socket");
+            Thread.sleep(10);
+        }
+    }
+}
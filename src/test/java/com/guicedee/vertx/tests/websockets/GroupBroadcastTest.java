@@ -0,0 +1,124 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.vertx.tests.websockets.WebSocketTestServer.TestClient;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Group broadcasts to sockets spread over several event loops: every recipient must receive the
+ * complete payload, even though the message (and for binary, its buffer) is shared between them.
+ */
+class GroupBroadcastTest
+{
+    private static final int CLIENTS = 8;
+
+    private WebSocketTestServer server;
+    private final List<TestClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void start() throws Exception
+    {
+        server = WebSocketTestServer.start(2);
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            clients.add(server.connect());
+        }
+        assertEquals(2, server.eventLoopsInUse(), "sockets should be spread over both event loops");
+    }
+
+    @AfterEach
+    void stop() throws Exception
+    {
+        server.close();
+    }
+
+    @Test
+    void everyMemberReceivesTheWholeTextMessage() throws Exception
+    {
+        join("fanout", clients);
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            //alternate ASCII and multi-byte payloads, some larger than a socket buffer read
+            String message = (i % 2 == 0 ? "tick-" : "€uro-ñ-") + i + "-" + "x".repeat(i * 500);
+            sent.add(message);
+            VertxSocketHttpWebSocketConfigurator.publishToGroup("fanout", message);
+        }
+        for (TestClient client : clients)
+        {
+            for (String expected : sent)
+            {
+                assertEquals(expected, client.nextText(), "client " + client.id());
+            }
+        }
+    }
+
+    @Test
+    void broadcastFromAnEventLoopReachesBothLoops() throws Exception
+    {
+        join("fanout", clients);
+        CompletableFuture<Void> published = new CompletableFuture<>();
+        server.connection(clients.getFirst())
+              .runOnContext(() -> {
+                  VertxSocketHttpWebSocketConfigurator.publishToGroup("fanout", "from-a-loop");
+                  VertxSocketHttpWebSocketConfigurator.publishToGroup("fanout", "second");
+                  published.complete(null);
+              });
+        published.get(WebSocketTestServer.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (TestClient client : clients)
+        {
+            assertEquals("from-a-loop", client.nextText());
+            assertEquals("second", client.nextText());
+        }
+    }
+
+    @Test
+    void everyMemberReceivesTheWholeBinaryMessage() throws Exception
+    {
+        join("binary", clients);
+        Buffer payload = Buffer.buffer();
+        for (int i = 0; i < 4096; i++)
+        {
+            payload.appendByte((byte) i);
+        }
+        VertxSocketHttpWebSocketConfigurator.publishToGroup("binary", payload);
+        VertxSocketHttpWebSocketConfigurator.publishToGroup("binary", payload);
+        for (TestClient client : clients)
+        {
+            assertEquals(payload, client.nextBinary(), "client " + client.id());
+            assertEquals(payload, client.nextBinary(), "client " + client.id());
+        }
+        assertEquals(4096, payload.length(), "the shared buffer must not be consumed by the writes");
+    }
+
+    @Test
+    void multiGroupBroadcastIsWrittenOncePerSocket() throws Exception
+    {
+        join("a", clients.subList(0, CLIENTS / 2));
+        join("b", clients);
+        VertxSocketHttpWebSocketConfigurator.publishToGroups(List.of("a", "b"), "once");
+        for (TestClient client : clients)
+        {
+            assertEquals("once", client.nextText());
+            assertNull(client.pollText(200), "client " + client.id() + " received a duplicate");
+        }
+    }
+
+    private void join(String group, List<TestClient> members)
+    {
+        for (TestClient client : members)
+        {
+            VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), group, server.socket(client));
+        }
+    }
+}
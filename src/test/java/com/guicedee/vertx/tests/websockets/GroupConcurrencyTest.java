@@ -0,0 +1,297 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.vertx.tests.websockets.WebSocketTestServer.TestClient;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import com.guicedee.vertx.websockets.WebSocketException;
+import com.guicedee.vertx.websockets.WebSocketGroupOptions;
+import com.guicedee.vertx.websockets.WebSocketServerOptions;
+import com.guicedee.vertx.websockets.WebSocketStatistics;
+import io.vertx.core.http.ServerWebSocket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.guicedee.client.services.websocket.IGuicedWebSocket.EveryoneGroup;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Joins and leaves of the same groups racing from caller threads and from several event loops.
+ *
+ * <p>Every connection is driven by exactly one thread or event loop, which keeps a model of the
+ * groups it should be in, so whatever the interleaving the registry must end up matching the
+ * models: every member present once, one EventBus consumer per non-empty group and none for the
+ * groups left empty.</p>
+ *
+ * <p>Sockets are accepted through the configurator, so every connection is also a member of
+ * {@code Everyone}, which the group size limit never applies to.</p>
+ */
+class GroupConcurrencyTest
+{
+    private static final int EVENT_LOOPS = 4;
+    private static final int CLIENTS = 64;
+    private static final int GROUPS = 8;
+    private static final int OPERATIONS_PER_CLIENT = 1_000;
+
+    private WebSocketTestServer server;
+
+    @AfterEach
+    void stop() throws Exception
+    {
+        if (server != null)
+        {
+            server.close();
+        }
+    }
+
+    @Test
+    void parallelJoinsAndLeavesKeepTheRegistryConsistent() throws Exception
+    {
+        server = WebSocketTestServer.start(EVENT_LOOPS);
+        List<TestClient> clients = connect();
+        List<Set<String>> models = new ArrayList<>();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        try
+        {
+            for (int i = 0; i < CLIENTS; i++)
+            {
+                ServerWebSocket socket = server.socket(clients.get(i));
+                Set<String> model = new HashSet<>();
+                models.add(model);
+                long seed = i;
+                CompletableFuture<Void> finished = new CompletableFuture<>();
+                done.add(finished);
+                Runnable work = () -> {
+                    try
+                    {
+                        churn(socket, model, seed);
+                        finished.complete(null);
+                    }
+                    catch (Throwable t)
+                    {
+                        finished.completeExceptionally(t);
+                    }
+                };
+                if (i % 2 == 0)
+                {
+                    threads.execute(() -> {
+                        awaitQuietly(go);
+                        work.run();
+                    });
+                }
+                else
+                {
+                    //the odd connections are driven from their own event loop
+                    WebSocketConnection connection = server.connection(clients.get(i));
+                    threads.execute(() -> {
+                        awaitQuietly(go);
+                        connection.runOnContext(work);
+                    });
+                }
+            }
+            go.countDown();
+            CompletableFuture.allOf(done.toArray(CompletableFuture[]::new))
+                             .get(60, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            threads.shutdownNow();
+        }
+
+        int nonEmpty = 0;
+        for (int g = 0; g < GROUPS; g++)
+        {
+            String group = "group-" + g;
+            int expected = 0;
+            for (Set<String> model : models)
+            {
+                expected += model.contains(group) ? 1 : 0;
+            }
+            assertEquals(expected, VertxSocketHttpWebSocketConfigurator.getGroupSize(group), group + " members");
+            if (expected == 0)
+            {
+                assertFalse(VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey(group), group + " was not reclaimed");
+                assertFalse(VertxSocketHttpWebSocketConfigurator.groupConsumers.containsKey(group), group + " kept its consumer");
+            }
+            else
+            {
+                nonEmpty++;
+                assertEquals(1, VertxSocketHttpWebSocketConfigurator.groupConsumers.get(group)
+                                                                                   .size(), group + " consumers");
+            }
+        }
+        //plus Everyone, which every accepted socket joined
+        assertEquals(nonEmpty + 1, VertxSocketHttpWebSocketConfigurator.getGroupConsumerCount());
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            assertEquals(models.get(i), new HashSet<>(server.connection(clients.get(i))
+                                                            .getGroupNames()), "memberships of client " + i);
+        }
+    }
+
+    @Test
+    void concurrentJoinsCannotOverfillAGroup() throws Exception
+    {
+        WebSocketServerOptions options = new WebSocketServerOptions();
+        options.setMaxGroupSize(10);
+        server = WebSocketTestServer.start(EVENT_LOOPS, options);
+        List<TestClient> clients = connect();
+        AtomicInteger rejected = new AtomicInteger();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (TestClient client : clients)
+        {
+            ServerWebSocket socket = server.socket(client);
+            CompletableFuture<Void> joined = new CompletableFuture<>();
+            done.add(joined);
+            server.connection(client)
+                  .runOnContext(() -> {
+                      try
+                      {
+                          VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), "capped", socket);
+                      }
+                      catch (WebSocketException e)
+                      {
+                          rejected.incrementAndGet();
+                      }
+                      joined.complete(null);
+                  });
+        }
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new))
+                         .get(WebSocketTestServer.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(10, VertxSocketHttpWebSocketConfigurator.getGroupSize("capped"));
+        assertEquals(CLIENTS, VertxSocketHttpWebSocketConfigurator.getGroupSize(EveryoneGroup), "Everyone is exempt from the limit");
+        assertEquals(CLIENTS - 10, rejected.get());
+        assertEquals(CLIENTS - 10, WebSocketStatistics.getGroupJoinsRejected());
+        assertEquals(2, VertxSocketHttpWebSocketConfigurator.getGroupConsumerCount(), "capped and Everyone");
+    }
+
+    @Test
+    void joinsRacingClosesLeaveNoRegistrations() throws Exception
+    {
+        server = WebSocketTestServer.start(EVENT_LOOPS);
+        List<TestClient> clients = connect();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (TestClient client : clients)
+        {
+            ServerWebSocket socket = server.socket(client);
+            WebSocketConnection connection = server.connection(client);
+            CompletableFuture<Void> joined = new CompletableFuture<>();
+            done.add(joined);
+            //the joins run on the socket's event loop while the client's close is in flight
+            connection.runOnContext(() -> {
+                for (int g = 0; g < GROUPS; g++)
+                {
+                    VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), "group-" + g, socket);
+                }
+                joined.complete(null);
+            });
+            client.socket()
+                  .close();
+        }
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new))
+                         .get(WebSocketTestServer.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        long deadline = System.currentTimeMillis() + WebSocketTestServer.TIMEOUT_SECONDS * 1000;
+        while (VertxSocketHttpWebSocketConfigurator.getConnectionCount() != 0)
+        {
+            assertTrue(System.currentTimeMillis() < deadline, "the server never released the closed sockets");
+            Thread.sleep(10);
+        }
+
+        for (int g = 0; g < GROUPS; g++)
+        {
+            assertFalse(VertxSocketHttpWebSocketConfigurator.groupSockets.containsKey("group-" + g), "group-" + g + " was not reclaimed");
+        }
+        assertEquals(List.of(), VertxSocketHttpWebSocketConfigurator.getOrphanedRegistrations());
+        assertEquals(1, VertxSocketHttpWebSocketConfigurator.getGroupConsumerCount(), "only Everyone");
+    }
+
+    @Test
+    void optionsConfiguredDuringTheFirstJoinApplyToTheGroup() throws Exception
+    {
+        server = WebSocketTestServer.start(EVENT_LOOPS);
+        List<TestClient> clients = connect();
+        List<WebSocketGroupOptions> configured = new ArrayList<>();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            String group = "configured-" + i;
+            ServerWebSocket socket = server.socket(clients.get(i));
+            WebSocketGroupOptions options = new WebSocketGroupOptions();
+            options.setConflating(true);
+            configured.add(options);
+            CompletableFuture<Void> joined = new CompletableFuture<>();
+            done.add(joined);
+            //the group is created on the socket's event loop while its options are registered from this thread
+            server.connection(clients.get(i))
+                  .runOnContext(() -> {
+                      VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), group, socket);
+                      joined.complete(null);
+                  });
+            VertxSocketHttpWebSocketConfigurator.configureGroup(group, options);
+        }
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new))
+                         .get(WebSocketTestServer.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            assertSame(configured.get(i), VertxSocketHttpWebSocketConfigurator.groupSockets.get("configured-" + i)
+                                                                                           .getOptions(), "configured-" + i);
+        }
+    }
+
+    private List<TestClient> connect() throws Exception
+    {
+        List<TestClient> clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            clients.add(server.connect());
+        }
+        assertEquals(EVENT_LOOPS, server.eventLoopsInUse());
+        return clients;
+    }
+
+    private void churn(ServerWebSocket socket, Set<String> model, long seed)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int op = 0; op < OPERATIONS_PER_CLIENT; op++)
+        {
+            String group = "group-" + random.nextInt(GROUPS);
+            if (model.remove(group))
+            {
+                VertxSocketHttpWebSocketConfigurator.removeFromGroup(group, socket);
+            }
+            else
+            {
+                VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), group, socket);
+                model.add(group);
+            }
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.vertx.tests.websockets.WebSocketTestServer.TestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Text messages read by the accepted socket's own handler are dispatched to their listener inside a
+ * call scope of their connection, with properties of their own.
+ */
+class InboundDispatchTest
+{
+    private WebSocketTestServer server;
+
+    @BeforeEach
+    void start() throws Exception
+    {
+        server = WebSocketTestServer.start(2);
+    }
+
+    @AfterEach
+    void stop() throws Exception
+    {
+        server.close();
+    }
+
+    @Test
+    void eachMessageSeesItsConnectionAndFreshProperties() throws Exception
+    {
+        TestClient first = server.connect();
+        TestClient second = server.connect();
+
+        send(first, 1);
+        send(first, 2);
+        send(second, 3);
+
+        assertEquals(first.id() + "|" + first.id() + "|null", first.nextText());
+        assertEquals(first.id() + "|" + first.id() + "|null", first.nextText(), "properties carried over from the previous message");
+        assertEquals(second.id() + "|" + second.id() + "|null", second.nextText());
+        assertNull(first.pollText(200), "a reply went to the wrong connection");
+    }
+
+    @Test
+    void unknownActionIsDroppedAndTheConnectionStaysUsable() throws Exception
+    {
+        TestClient client = server.connect();
+
+        WebSocketTestServer.await(client.socket()
+                                        .writeTextMessage("{\"action\":\"nobody-listens\"}"));
+        send(client, 1);
+
+        assertEquals(client.id() + "|" + client.id() + "|null", client.nextText());
+    }
+
+    private static void send(TestClient client, int n) throws Exception
+    {
+        WebSocketTestServer.await(client.socket()
+                                        .writeTextMessage("{\"action\":\"" + ScopeProbeReceiver.ACTION + "\",\"data\":{\"n\":" + n + "}}"));
+    }
+}
@@ -0,0 +1,228 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.vertx.tests.websockets.WebSocketTestServer.TestClient;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import com.guicedee.vertx.websockets.WebSocketOverflowPolicy;
+import com.guicedee.vertx.websockets.WebSocketServerOptions;
+import com.guicedee.vertx.websockets.WebSocketStatistics;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.http.ServerWebSocket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Outbound queue limits and overflow policies of a {@link WebSocketConnection} whose socket is not writable.
+ *
+ * <p>The socket is a stand-in whose write queue is reported full until the test drains it, so the
+ * queue contents and counters are exact. One test instead uses a socket accepted by the server,
+ * whose client stops reading.</p>
+ */
+class OverflowPolicyTest
+{
+    private SlowSocket socket;
+    private WebSocketConnection connection;
+
+    @BeforeEach
+    void setUp()
+    {
+        WebSocketStatistics.reset();
+        socket = new SlowSocket();
+        connection = new WebSocketConnection("slow", socket.proxy, null);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        VertxSocketHttpWebSocketConfigurator.setOptions(new WebSocketServerOptions());
+        WebSocketStatistics.reset();
+    }
+
+    @Test
+    void dropNewestKeepsTheQueuedMessages()
+    {
+        options(WebSocketOverflowPolicy.DROP_NEWEST, 2, 1024);
+        connection.write("a");
+        connection.write("b");
+        connection.write("c");
+
+        assertEquals(2, connection.getQueuedMessages());
+        assertEquals(1, WebSocketStatistics.getOverflowCount(WebSocketOverflowPolicy.DROP_NEWEST));
+        socket.drain();
+        assertEquals(List.of("a", "b"), socket.written);
+        assertEquals(0, connection.getQueuedBytes());
+    }
+
+    @Test
+    void dropOldestMakesRoomForTheNewMessage()
+    {
+        options(WebSocketOverflowPolicy.DROP_OLDEST, 2, 1024);
+        connection.write("a");
+        connection.write("b");
+        connection.write("c");
+
+        assertEquals(2, connection.getQueuedMessages());
+        assertEquals(1, WebSocketStatistics.getOverflowCount(WebSocketOverflowPolicy.DROP_OLDEST));
+        socket.drain();
+        assertEquals(List.of("b", "c"), socket.written);
+    }
+
+    @Test
+    void coalesceLatestReplacesTheQueuedMessageForAKey()
+    {
+        options(WebSocketOverflowPolicy.COALESCE_LATEST, 16, 1024);
+        connection.write("price=1", "price");
+        connection.write("volume=1", "volume");
+        connection.write("price=2", "price");
+
+        assertEquals(2, connection.getQueuedMessages());
+        assertEquals("price=2volume=1".length(), connection.getQueuedBytes());
+        assertEquals(1, WebSocketStatistics.getOverflowCount(WebSocketOverflowPolicy.COALESCE_LATEST));
+        socket.drain();
+        assertEquals(List.of("price=2", "volume=1"), socket.written);
+    }
+
+    @Test
+    void closeShutsTheSlowSocket()
+    {
+        options(WebSocketOverflowPolicy.CLOSE, 1, 1024);
+        connection.write("a");
+        connection.write("b");
+
+        assertEquals(Short.valueOf((short) 1008), socket.closeStatus);
+        assertEquals(0, connection.getQueuedMessages());
+        assertEquals(0, connection.getQueuedBytes());
+        assertEquals(1, WebSocketStatistics.getOverflowCount(WebSocketOverflowPolicy.CLOSE));
+        connection.write("c");
+        assertTrue(socket.written.isEmpty());
+    }
+
+    @Test
+    void byteLimitCountsEncodedBytes()
+    {
+        options(WebSocketOverflowPolicy.DROP_NEWEST, 100, 10);
+        //three characters, nine bytes
+        connection.write("€€€");
+        assertEquals(9, connection.getQueuedBytes());
+        //four characters in total would fit, twelve bytes do not
+        connection.write("€");
+        assertEquals(1, connection.getQueuedMessages());
+        assertEquals(1, WebSocketStatistics.getOverflowCount(WebSocketOverflowPolicy.DROP_NEWEST));
+        //a supplementary character is two chars and four bytes
+        connection.write("😀");
+        assertEquals(1, connection.getQueuedMessages());
+        connection.write("x");
+        assertEquals(10, connection.getQueuedBytes());
+    }
+
+    @Test
+    void acceptedSocketThatStopsReadingIsBounded() throws Exception
+    {
+        WebSocketServerOptions options = new WebSocketServerOptions();
+        options.setOverflowPolicy(WebSocketOverflowPolicy.DROP_NEWEST);
+        options.setMaxQueuedMessages(4);
+        try (WebSocketTestServer server = WebSocketTestServer.start(1, options))
+        {
+            TestClient client = server.connect();
+            WebSocketConnection accepted = server.connection(client);
+            //the client stops reading, so the TCP buffers and then the socket's write queue fill up
+            client.socket()
+                  .pause();
+            String payload = "x".repeat(32 * 1024);
+            for (int i = 0; i < 1_000; i++)
+            {
+                VertxSocketHttpWebSocketConfigurator.sendToConnection(client.id(), i + ":" + payload);
+            }
+            long deadline = System.currentTimeMillis() + WebSocketTestServer.TIMEOUT_SECONDS * 1000;
+            while (WebSocketStatistics.getOverflowCount(WebSocketOverflowPolicy.DROP_NEWEST) == 0)
+            {
+                assertTrue(System.currentTimeMillis() < deadline, "the queue never overflowed");
+                Thread.sleep(10);
+            }
+            assertTrue(WebSocketTestServer.onContext(accepted, accepted::getQueuedMessages) <= 4);
+
+            client.socket()
+                  .resume();
+            int received = 0;
+            int last = -1;
+            for (String message = client.nextText(); message != null; message = client.pollText(500))
+            {
+                int index = Integer.parseInt(message.substring(0, message.indexOf(':')));
+                assertTrue(index > last, "messages arrived out of order");
+                assertEquals(payload.length(), message.length() - message.indexOf(':') - 1);
+                last = index;
+                received++;
+            }
+            assertTrue(received < 1_000, "nothing was dropped");
+            assertEquals(1_000 - received, WebSocketStatistics.getOverflowCount(WebSocketOverflowPolicy.DROP_NEWEST));
+        }
+    }
+
+    private static void options(WebSocketOverflowPolicy policy, int maxMessages, long maxBytes)
+    {
+        WebSocketServerOptions options = new WebSocketServerOptions();
+        options.setOverflowPolicy(policy);
+        options.setMaxQueuedMessages(maxMessages);
+        options.setMaxQueuedBytes(maxBytes);
+        VertxSocketHttpWebSocketConfigurator.setOptions(options);
+    }
+
+    /**
+     * A socket whose write queue stays full until drained
+     */
+    private static final class SlowSocket
+    {
+        private final List<Object> written = new ArrayList<>();
+        private final ServerWebSocket proxy;
+        private boolean full = true;
+        private boolean closed;
+        private Short closeStatus;
+        private Handler<Void> drainHandler;
+
+        @SuppressWarnings("unchecked")
+        private SlowSocket()
+        {
+            proxy = (ServerWebSocket) Proxy.newProxyInstance(ServerWebSocket.class.getClassLoader(),
+                    new Class<?>[]{ServerWebSocket.class}, (self, method, args) -> switch (method.getName())
+                    {
+                        case "writeQueueFull" -> full;
+                        case "isClosed" -> closed;
+                        case "textHandlerID" -> "slow";
+                        case "writeTextMessage", "writeBinaryMessage", "writeFrame" ->
+                        {
+                            written.add(args[0]);
+                            yield Future.succeededFuture();
+                        }
+                        case "drainHandler" ->
+                        {
+                            drainHandler = (Handler<Void>) args[0];
+                            yield self;
+                        }
+                        case "close" ->
+                        {
+                            closed = true;
+                            closeStatus = args != null && args.length > 0 ? (Short) args[0] : null;
+                            yield Future.succeededFuture();
+                        }
+                        case "hashCode" -> System.identityHashCode(self);
+                        case "equals" -> self == args[0];
+                        case "toString" -> "SlowSocket";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private void drain()
+        {
+            full = false;
+            drainHandler.handle(null);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.vertx.tests.websockets.WebSocketTestServer.TestClient;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketGroupOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pattern groups are opt-in and only ever add recipients: the exact group, or the connection a
+ * message is addressed to, is always delivered to, and connection ids are never matched.
+ */
+class PatternGroupTest
+{
+    private WebSocketTestServer server;
+    private TestClient target;
+    private TestClient bystander;
+    private TestClient subscriber;
+
+    @BeforeEach
+    void start() throws Exception
+    {
+        server = WebSocketTestServer.start(2);
+        target = server.connect();
+        bystander = server.connect();
+        subscriber = server.connect();
+    }
+
+    @AfterEach
+    void stop() throws Exception
+    {
+        server.close();
+    }
+
+    @Test
+    void directSendReachesOnlyItsTargetWhileAMultiWildcardSubscriberExists() throws Exception
+    {
+        VertxSocketHttpWebSocketConfigurator.configureGroup("#", pattern());
+        join("#", subscriber);
+
+        VertxSocketHttpWebSocketConfigurator.publishToGroup(target.id(), "direct");
+        assertTrue(VertxSocketHttpWebSocketConfigurator.sendToConnection(target.id(), "sent"));
+
+        assertEquals("direct", target.nextText());
+        assertEquals("sent", target.nextText());
+        assertNull(subscriber.pollText(200), "the # subscriber received a message addressed to a connection");
+        assertNull(bystander.pollText(50));
+    }
+
+    @Test
+    void patternFanOutIsAddedToTheExactGroup() throws Exception
+    {
+        VertxSocketHttpWebSocketConfigurator.configureGroup("prices.#", pattern());
+        join("prices.eu.gbp", target);
+        join("prices.#", subscriber);
+
+        VertxSocketHttpWebSocketConfigurator.publishToGroup("prices.eu.gbp", "tick");
+
+        assertEquals("tick", target.nextText());
+        assertEquals("tick", subscriber.nextText());
+        assertNull(bystander.pollText(200));
+    }
+
+    @Test
+    void aGroupNamedLikeAPatternIsAnOrdinaryGroupUnlessConfigured() throws Exception
+    {
+        join("#", subscriber);
+        join("news", target);
+
+        VertxSocketHttpWebSocketConfigurator.publishToGroup("news", "headline");
+        VertxSocketHttpWebSocketConfigurator.publishToGroup("#", "hash");
+
+        assertEquals("headline", target.nextText());
+        assertEquals("hash", subscriber.nextText());
+        assertNull(subscriber.pollText(200), "an unconfigured # group must not match other groups");
+        assertNull(target.pollText(50));
+    }
+
+    @Test
+    void onlyNamesWithAWildcardSegmentCanBePatterns()
+    {
+        assertThrows(IllegalArgumentException.class,
+                () -> VertxSocketHttpWebSocketConfigurator.configureGroup("prices.eu", pattern()));
+    }
+
+    private static WebSocketGroupOptions pattern()
+    {
+        WebSocketGroupOptions options = new WebSocketGroupOptions();
+        options.setPattern(true);
+        return options;
+    }
+
+    private void join(String group, TestClient client)
+    {
+        VertxSocketHttpWebSocketConfigurator.configureGroupListener(server.vertx(), group, server.socket(client));
+    }
+}
@@ -0,0 +1,42 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.client.scopes.CallScopeProperties;
+import com.guicedee.client.services.websocket.IWebSocketMessageReceiver;
+import com.guicedee.client.services.websocket.WebSocketMessageReceiver;
+import com.guicedee.vertx.websockets.GuicedWebSocket;
+import io.smallrye.mutiny.Uni;
+
+import java.util.Set;
+
+/**
+ * Replies to the {@value #ACTION} action with what its call scope holds:
+ * {@code <RequestContextId>|<broadcastGroup>|<value left by an earlier message>}.
+ *
+ * <p>Each message then leaves a value in its call-scope properties, which the next message of the
+ * connection must not see.</p>
+ */
+public class ScopeProbeReceiver implements IWebSocketMessageReceiver<Void, ScopeProbeReceiver>
+{
+    static final String ACTION = "scope-probe";
+
+    @Override
+    public Set<String> messageNames()
+    {
+        return Set.of(ACTION);
+    }
+
+    @Override
+    public Uni<Void> receiveMessage(WebSocketMessageReceiver<?> message)
+    {
+        CallScopeProperties properties = IGuiceContext.get(CallScopeProperties.class);
+        Object left = properties.getProperties()
+                                .put("probe", message.getData()
+                                                     .get("n"));
+        IGuiceContext.get(GuicedWebSocket.class)
+                     .broadcastMessage(properties.getProperties()
+                                                 .get("RequestContextId") + "|" + message.getBroadcastGroup() + "|" + left);
+        return Uni.createFrom()
+                  .voidItem();
+    }
+}
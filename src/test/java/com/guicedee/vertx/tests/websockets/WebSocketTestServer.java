@@ -0,0 +1,270 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.client.IGuiceContext;
+import com.guicedee.vertx.websockets.VertxSocketHttpWebSocketConfigurator;
+import com.guicedee.vertx.websockets.WebSocketConnection;
+import com.guicedee.vertx.websockets.WebSocketServerOptions;
+import com.guicedee.vertx.websockets.WebSocketStatistics;
+import io.vertx.core.Context;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.VerticleBase;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.ClientWebSocket;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded WebSocket server for tests.
+ *
+ * <p>Boots the injector and deploys one server instance per event loop on a shared port, each
+ * configured through the configurator's {@code builder(HttpServerOptions)} and
+ * {@code builder(HttpServer)}, so sockets are accepted, joined to {@code Everyone}, read from and torn
+ * down by the library itself. The servers run on a Vert.x instance of their own with the requested
+ * number of event loops, so that accepted sockets are spread over exactly that many loops.</p>
+ *
+ * <p>The server options passed to {@link #start(int, WebSocketServerOptions)} are applied once the
+ * servers are listening; the HTTP server settings themselves come from the injected options.</p>
+ */
+final class WebSocketTestServer implements AutoCloseable
+{
+    static final long TIMEOUT_SECONDS = 10;
+
+    private final Vertx vertx;
+    private final int port;
+    private final Vertx clientVertx;
+    private final WebSocketClient client;
+    private final Set<Context> contexts = ConcurrentHashMap.newKeySet();
+
+    private WebSocketTestServer(Vertx vertx, int port)
+    {
+        this.vertx = vertx;
+        this.port = port;
+        this.clientVertx = Vertx.vertx();
+        this.client = clientVertx.createWebSocketClient();
+    }
+
+    static WebSocketTestServer start(int eventLoops) throws Exception
+    {
+        return start(eventLoops, new WebSocketServerOptions());
+    }
+
+    static WebSocketTestServer start(int eventLoops, WebSocketServerOptions options) throws Exception
+    {
+        IGuiceContext.instance()
+                     .inject();
+        reset();
+        VertxSocketHttpWebSocketConfigurator configurator = IGuiceContext.get(VertxSocketHttpWebSocketConfigurator.class);
+        Vertx vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(eventLoops));
+        WebSocketTestServer server = new WebSocketTestServer(vertx, freePort());
+        await(vertx.deployVerticle(() -> new VerticleBase()
+        {
+            @Override
+            public Future<?> start()
+            {
+                return configurator.builder(vertx.createHttpServer(configurator.builder(new HttpServerOptions())))
+                                   .listen(server.port);
+            }
+        }, new DeploymentOptions().setInstances(eventLoops)));
+        VertxSocketHttpWebSocketConfigurator.setOptions(options);
+        return server;
+    }
+
+    Vertx vertx()
+    {
+        return vertx;
+    }
+
+    /**
+     * Opens a client socket and finds the connection the server registered for it.
+     *
+     * <p>The server registers a connection before it completes the upgrade, so the new connection is
+     * the one that was not registered before the connect. Clients are connected one at a time.</p>
+     *
+     * @return the connected client
+     */
+    synchronized TestClient connect() throws Exception
+    {
+        Set<String> before = new HashSet<>(VertxSocketHttpWebSocketConfigurator.connections.keySet());
+        TestClient client = new TestClient(this.client.webSocket());
+        await(client.socket.connect(port, "localhost", "/"));
+        for (WebSocketConnection connection : VertxSocketHttpWebSocketConfigurator.connections.values())
+        {
+            if (!before.contains(connection.getId()))
+            {
+                client.id = connection.getId();
+                contexts.add(connection.getContext());
+                return client;
+            }
+        }
+        throw new IllegalStateException("The server did not register a connection for the new socket");
+    }
+
+    ServerWebSocket socket(TestClient client)
+    {
+        WebSocketConnection connection = connection(client);
+        if (connection == null)
+        {
+            throw new IllegalStateException("Connection " + client.id + " is not registered");
+        }
+        return connection.getSocket();
+    }
+
+    WebSocketConnection connection(TestClient client)
+    {
+        return VertxSocketHttpWebSocketConfigurator.connections.get(client.id);
+    }
+
+    /**
+     * Returns the number of distinct event loops the accepted sockets are bound to
+     *
+     * @return the event loop count
+     */
+    int eventLoopsInUse()
+    {
+        return contexts.size();
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        try
+        {
+            await(clientVertx.close());
+            await(vertx.close());
+        }
+        finally
+        {
+            reset();
+        }
+    }
+
+    /**
+     * Clears the process-wide registries so that one test cannot leak state into the next.
+     */
+    static void reset()
+    {
+        VertxSocketHttpWebSocketConfigurator.connections.clear();
+        VertxSocketHttpWebSocketConfigurator.groupSockets.clear();
+        //Everyone's consumer lives on the injected Vert.x, which outlives the test servers
+        for (List<MessageConsumer<String>> consumers : VertxSocketHttpWebSocketConfigurator.groupConsumers.values())
+        {
+            consumers.forEach(MessageConsumer::unregister);
+        }
+        VertxSocketHttpWebSocketConfigurator.groupConsumers.clear();
+        VertxSocketHttpWebSocketConfigurator.groupOptions.clear();
+        VertxSocketHttpWebSocketConfigurator.replayBuffers.clear();
+        VertxSocketHttpWebSocketConfigurator.sessions.clear();
+        for (String pattern : VertxSocketHttpWebSocketConfigurator.getTopicMatcher()
+                                                                  .getPatterns())
+        {
+            VertxSocketHttpWebSocketConfigurator.getTopicMatcher()
+                                                .remove(pattern);
+        }
+        WebSocketStatistics.reset();
+    }
+
+    static <T> T await(Future<T> future) throws Exception
+    {
+        return future.toCompletionStage()
+                     .toCompletableFuture()
+                     .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs a task on a connection's event loop and waits for its result.
+     */
+    static <T> T onContext(WebSocketConnection connection, java.util.function.Supplier<T> task) throws Exception
+    {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        connection.runOnContext(() -> {
+            try
+            {
+                result.complete(task.get());
+            }
+            catch (Throwable t)
+            {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static int freePort() throws IOException
+    {
+        try (ServerSocket socket = new ServerSocket(0))
+        {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * A client socket collecting what it receives.
+     */
+    static final class TestClient
+    {
+        private final ClientWebSocket socket;
+        private final BlockingQueue<String> texts = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Buffer> binaries = new LinkedBlockingQueue<>();
+        private final CompletableFuture<Short> closed = new CompletableFuture<>();
+        private volatile String id;
+
+        private TestClient(ClientWebSocket socket)
+        {
+            this.socket = socket;
+            socket.textMessageHandler(texts::add);
+            socket.binaryMessageHandler(binaries::add);
+            socket.closeHandler(v -> closed.complete(socket.closeStatusCode()));
+        }
+
+        String id()
+        {
+            return id;
+        }
+
+        ClientWebSocket socket()
+        {
+            return socket;
+        }
+
+        String nextText() throws InterruptedException
+        {
+            return texts.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        String pollText(long millis) throws InterruptedException
+        {
+            return texts.poll(millis, TimeUnit.MILLISECONDS);
+        }
+
+        Buffer nextBinary() throws InterruptedException
+        {
+            return binaries.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        Short closeStatus() throws Exception
+        {
+            return closed.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        void close() throws Exception
+        {
+            await(socket.close());
+        }
+    }
+}
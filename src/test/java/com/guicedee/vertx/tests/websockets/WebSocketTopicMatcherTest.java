@@ -0,0 +1,150 @@
+package com.guicedee.vertx.tests.websockets;
+
+import com.guicedee.vertx.websockets.WebSocketTopicMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketTopicMatcherTest
+{
+    @Test
+    void singleWildcardMatchesExactlyOneSegment()
+    {
+        WebSocketTopicMatcher matcher = new WebSocketTopicMatcher();
+        matcher.add("prices.*");
+
+        assertEquals(List.of("prices.*"), matcher.match("prices.gbp"));
+        assertEquals(List.of(), matcher.match("prices"));
+        assertEquals(List.of(), matcher.match("prices.eu.gbp"));
+        assertEquals(List.of(), matcher.match("stocks.gbp"));
+    }
+
+    @Test
+    void multiWildcardMatchesAnyNumberOfSegments()
+    {
+        WebSocketTopicMatcher matcher = new WebSocketTopicMatcher();
+        matcher.add("prices.#");
+
+        assertEquals(List.of("prices.#"), matcher.match("prices.gbp"));
+        assertEquals(List.of("prices.#"), matcher.match("prices.eu.gbp"));
+        assertEquals(List.of(), matcher.match("stocks.eu.gbp"));
+    }
+
+    @Test
+    void multiWildcardMatchesZeroSegments()
+    {
+        WebSocketTopicMatcher matcher = new WebSocketTopicMatcher();
+        matcher.add("prices.#");
+        matcher.add("a.#.z");
+        matcher.add("#");
+
+        assertEquals(Set.of("prices.#", "#"), Set.copyOf(matcher.match("prices")));
+        assertEquals(Set.of("a.#.z", "#"), Set.copyOf(matcher.match("a.z")));
+        assertEquals(Set.of("a.#.z", "#"), Set.copyOf(matcher.match("a.b.c.z")));
+        assertEquals(List.of("#"), matcher.match("a.b"));
+    }
+
+    @Test
+    void everyMatchingPatternIsReturnedOnce()
+    {
+        WebSocketTopicMatcher matcher = new WebSocketTopicMatcher();
+        matcher.add("prices.*.gbp");
+        matcher.add("prices.#");
+        matcher.add("prices.eu.*");
+        matcher.add("prices.#.gbp");
+
+        List<String> matches = matcher.match("prices.eu.gbp");
+        assertEquals(4, matches.size());
+        assertEquals(Set.of("prices.*.gbp", "prices.#", "prices.eu.*", "prices.#.gbp"), Set.copyOf(matches));
+    }
+
+    @Test
+    void isPatternOnlyForWholeWildcardSegments()
+    {
+        assertTrue(WebSocketTopicMatcher.isPattern("prices.*"));
+        assertTrue(WebSocketTopicMatcher.isPattern("#"));
+        assertFalse(WebSocketTopicMatcher.isPattern("prices.eu"));
+        assertFalse(WebSocketTopicMatcher.isPattern("prices.gbp*"));
+        assertFalse(WebSocketTopicMatcher.isPattern("room#1"));
+    }
+
+    @Test
+    void removePrunesOnlyTheEmptyBranch()
+    {
+        WebSocketTopicMatcher matcher = new WebSocketTopicMatcher();
+        assertTrue(matcher.add("a.b.*"));
+        assertTrue(matcher.add("a.b.c.#"));
+        assertFalse(matcher.add("a.b.*"), "a pattern is registered once");
+
+        assertTrue(matcher.remove("a.b.c.#"));
+        assertFalse(matcher.remove("a.b.c.#"));
+        assertFalse(matcher.remove("a.b"), "a prefix of a pattern is not a pattern");
+        assertEquals(List.of("a.b.*"), matcher.getPatterns());
+        assertEquals(List.of("a.b.*"), matcher.match("a.b.c"));
+        assertEquals(List.of(), matcher.match("a.b.c.d"));
+
+        assertTrue(matcher.remove("a.b.*"));
+        assertTrue(matcher.isEmpty());
+        assertEquals(List.of(), matcher.getPatterns());
+        assertEquals(List.of(), matcher.match("a.b.c"));
+
+        assertTrue(matcher.add("a.b.c.#"), "a pruned branch can be added again");
+        assertEquals(List.of("a.b.c.#"), matcher.match("a.b.c.d"));
+    }
+
+    @Test
+    void changesInvalidateCachedMatches()
+    {
+        WebSocketTopicMatcher matcher = new WebSocketTopicMatcher();
+        matcher.add("x.*");
+        assertEquals(List.of("x.*"), matcher.match("x.y"));
+
+        matcher.add("x.#");
+        assertEquals(Set.of("x.*", "x.#"), Set.copyOf(matcher.match("x.y")));
+
+        matcher.remove("x.*");
+        assertEquals(List.of("x.#"), matcher.match("x.y"));
+
+        matcher.remove("x.#");
+        assertEquals(List.of(), matcher.match("x.y"));
+    }
+
+    @Test
+    void lookupsRacingWithChangesDoNotCacheStaleMatches() throws Exception
+    {
+        WebSocketTopicMatcher matcher = new WebSocketTopicMatcher();
+        matcher.add("keep.#");
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+        {
+            Thread reader = Thread.ofPlatform()
+                                  .start(() -> {
+                                      while (running.get())
+                                      {
+                                          matcher.match("t.a");
+                                      }
+                                  });
+            readers.add(reader);
+        }
+        for (int i = 0; i < 20_000; i++)
+        {
+            matcher.add("t.*");
+            matcher.remove("t.*");
+        }
+        running.set(false);
+        for (Thread reader : readers)
+        {
+            reader.join();
+        }
+        assertEquals(List.of(), matcher.match("t.a"), "a lookup cached a match for a removed pattern");
+
+        matcher.add("t.*");
+        assertEquals(List.of("t.*"), matcher.match("t.a"));
+    }
+}
@@ -7,5 +7,10 @@ module guiced.vertx.tests.sockets {
     requires java.net.http;
     requires com.guicedee.jsonrepresentation;
 
-   // opens com.guicedee.vertx.tests.websockets to org.junit.platform.commons;
+    requires io.smallrye.mutiny;
+
+    provides com.guicedee.client.services.websocket.IWebSocketMessageReceiver
+            with com.guicedee.vertx.tests.websockets.ScopeProbeReceiver;
+
+    opens com.guicedee.vertx.tests.websockets to org.junit.platform.commons, com.google.guice;
 }
\ No newline at end of file